@@ -0,0 +1,217 @@
+package io.github.pingisfun.muzikant.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.pingisfun.muzikant.service.SpotifyPageFixtures;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+// Local stand-in for the Spotify endpoints the backend calls: GET /v1/playlists/{id}, GET /v1/playlists/{id}/tracks,
+// GET /v1/albums?ids= and POST /api/token. Playlist ids of the form s<size>n<k> have <size> tracks, ids starting with "missing" return 404
+// and every other id has the default size. Each response waits for the configured latency, and a configurable share of
+// playlist calls answers 429 with Retry-After instead. Playlist metadata carries an ETag derived from the snapshot_id
+// and answers 304 to a matching If-None-Match.
+public class FakeSpotifyServer {
+  private static final Pattern PLAYLIST_PATH = Pattern.compile("/v1/playlists/([^/]+)(/tracks)?");
+  private static final Pattern SIZED_ID = Pattern.compile("s(\\d+)n\\d+");
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Duration latency;
+  private final int maxPageSize;
+  private final int defaultTracks;
+  private final double rateLimitChance;
+  private final int retryAfterSeconds;
+  private final AtomicLong playlistCalls = new AtomicLong();
+  private final AtomicLong trackPageCalls = new AtomicLong();
+  private final AtomicLong rateLimited = new AtomicLong();
+  private final AtomicLong notModified = new AtomicLong();
+  private final AtomicLong tokenCalls = new AtomicLong();
+  private final AtomicLong enrichCalls = new AtomicLong();
+  private HttpServer server;
+
+  public FakeSpotifyServer(
+    Duration latency,
+    int maxPageSize,
+    int defaultTracks,
+    double rateLimitChance,
+    int retryAfterSeconds
+  ) {
+    this.latency = latency;
+    this.maxPageSize = Math.max(1, maxPageSize);
+    this.defaultTracks = Math.max(0, defaultTracks);
+    this.rateLimitChance = rateLimitChance;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public void start(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  public void stop() {
+    if (server != null) {
+      server.stop(0);
+    }
+  }
+
+  public String getBaseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  public long getPlaylistCalls() {
+    return playlistCalls.get();
+  }
+
+  public long getTrackPageCalls() {
+    return trackPageCalls.get();
+  }
+
+  public long getRateLimited() {
+    return rateLimited.get();
+  }
+
+  public long getNotModified() {
+    return notModified.get();
+  }
+
+  public long getTokenCalls() {
+    return tokenCalls.get();
+  }
+
+  public long getEnrichCalls() {
+    return enrichCalls.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      sleep(latency);
+      String path = exchange.getRequestURI().getPath();
+      if (path.equals("/api/token") && "POST".equals(exchange.getRequestMethod())) {
+        tokenCalls.incrementAndGet();
+        respond(exchange, 200, "{\"access_token\":\"fake-" + tokenCalls.get() + "\",\"token_type\":\"Bearer\",\"expires_in\":3600}");
+        return;
+      }
+      if (path.equals("/v1/albums") && "GET".equals(exchange.getRequestMethod())) {
+        enrichCalls.incrementAndGet();
+        String ids = query(exchange.getRequestURI()).get("ids");
+        respond(exchange, 200, SpotifyPageFixtures.albums(objectMapper, ids != null ? List.of(ids.split(",")) : List.of()));
+        return;
+      }
+      Matcher matcher = PLAYLIST_PATH.matcher(path);
+      if (!matcher.matches() || !"GET".equals(exchange.getRequestMethod())) {
+        respond(exchange, 404, "{\"error\":{\"status\":404,\"message\":\"Not found\"}}");
+        return;
+      }
+      boolean tracks = matcher.group(2) != null;
+      (tracks ? trackPageCalls : playlistCalls).incrementAndGet();
+      if (rateLimitChance > 0 && ThreadLocalRandom.current().nextDouble() < rateLimitChance) {
+        rateLimited.incrementAndGet();
+        exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+        respond(exchange, 429, "{\"error\":{\"status\":429,\"message\":\"API rate limit exceeded\"}}");
+        return;
+      }
+      String playlistId = matcher.group(1);
+      if (playlistId.startsWith("missing")) {
+        respond(exchange, 404, "{\"error\":{\"status\":404,\"message\":\"Resource not found\"}}");
+        return;
+      }
+      int size = sizeOf(playlistId);
+      if (!tracks) {
+        String snapshotId = playlistId + "-" + size;
+        String etag = "\"" + snapshotId + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+          notModified.incrementAndGet();
+          exchange.sendResponseHeaders(304, -1);
+          return;
+        }
+        respond(exchange, 200, "{\"name\":\"Playlist " + playlistId + "\",\"snapshot_id\":\"" + snapshotId + "\"}");
+        return;
+      }
+      Map<String, String> query = query(exchange.getRequestURI());
+      int offset = parse(query.get("offset"), 0);
+      int limit = Math.min(maxPageSize, parse(query.get("limit"), maxPageSize));
+      String next = offset + limit < size
+        ? getBaseUrl() + "/v1/playlists/" + playlistId + "/tracks?offset=" + (offset + limit) + "&limit=" + limit
+        : null;
+      respond(exchange, 200, SpotifyPageFixtures.page(objectMapper, size, offset, limit, next, playlistId.hashCode()));
+    }
+  }
+
+  private int sizeOf(String playlistId) {
+    Matcher sized = SIZED_ID.matcher(playlistId);
+    return sized.matches() ? Integer.parseInt(sized.group(1)) : defaultTracks;
+  }
+
+  private void respond(HttpExchange exchange, int status, String body) throws IOException {
+    respond(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+        gzip.write(body);
+      }
+      body = compressed.toByteArray();
+      exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+    }
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static Map<String, String> query(URI uri) {
+    Map<String, String> values = new HashMap<>();
+    String raw = uri.getQuery();
+    if (raw == null) {
+      return values;
+    }
+    for (String pair : raw.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals > 0) {
+        values.put(pair.substring(0, equals), pair.substring(equals + 1));
+      }
+    }
+    return values;
+  }
+
+  private static int parse(String value, int fallback) {
+    try {
+      return value != null ? Integer.parseInt(value) : fallback;
+    } catch (NumberFormatException e) {
+      return fallback;
+    }
+  }
+
+  private static void sleep(Duration duration) {
+    if (duration.isZero() || duration.isNegative()) {
+      return;
+    }
+    try {
+      Thread.sleep(duration);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package io.github.pingisfun.muzikant.load;
+
+import io.github.pingisfun.muzikant.MuzikantApplication;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+// Starts FakeSpotifyServer and the backend pointed at it, then has N concurrent clients request playlists for a fixed
+// duration and reports throughput, latency percentiles and upstream calls per client request.
+//
+// Arguments are key=value pairs. Driver keys: clients, duration, playlists, tracks, sizes, latency, pageSize, rate429,
+// retryAfter, path, instances, shared. Any key starting with "spotify." or "spring." is passed to the backend as a
+// property, e.g. spotify.cache.ttl=1s spotify.max.concurrent.calls=8. With instances=n, n backends run side by side
+// and each client request goes to one of them at random; shared=redis starts an embedded redis-server and points every
+// backend at it through spotify.shared.store.
+public class LoadDriver {
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new LinkedHashMap<>();
+    options.put("clients", "32");
+    options.put("duration", "30s");
+    options.put("playlists", "20");
+    options.put("tracks", "1000");
+    options.put("sizes", "");
+    options.put("latency", "50ms");
+    options.put("pageSize", "100");
+    options.put("rate429", "0");
+    options.put("retryAfter", "1");
+    options.put("path", "/api/playlist/{id}");
+    options.put("instances", "1");
+    options.put("shared", "local");
+    Map<String, String> backend = new LinkedHashMap<>();
+    backend.put("spotify.snapshot.dir", "");
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (equals <= 0) {
+        throw new IllegalArgumentException("Expected key=value, got " + arg);
+      }
+      String key = arg.substring(0, equals);
+      String value = arg.substring(equals + 1);
+      if (key.startsWith("spotify.") || key.startsWith("spring.")) {
+        backend.put(key, value);
+      } else if (options.containsKey(key)) {
+        options.put(key, value);
+      } else {
+        throw new IllegalArgumentException("Unknown option " + key);
+      }
+    }
+
+    FakeSpotifyServer spotify = new FakeSpotifyServer(
+      DurationStyle.detectAndParse(options.get("latency")),
+      Integer.parseInt(options.get("pageSize")),
+      Integer.parseInt(options.get("tracks")),
+      Double.parseDouble(options.get("rate429")),
+      Integer.parseInt(options.get("retryAfter"))
+    );
+    spotify.start(0);
+    RedisServer redis = null;
+    if (options.get("shared").equals("redis")) {
+      int port = freePort();
+      redis = RedisServer.newRedisServer().bind("127.0.0.1").port(port).setting("save \"\"").build();
+      redis.start();
+      backend.put("spotify.shared.store", "redis");
+      backend.put("spring.data.redis.url", "redis://127.0.0.1:" + port);
+    }
+
+    backend.putIfAbsent("spotify.client.id", "load-client");
+    backend.putIfAbsent("spotify.client.secret", "load-secret");
+    backend.putIfAbsent("spotify.redirect.uri", "http://127.0.0.1/callback");
+    backend.putIfAbsent("spotify.refresh.token", "load-refresh-token");
+    backend.putIfAbsent("spotify.oauth.enabled", "false");
+    backend.putIfAbsent("spotify.max.concurrent.calls", "4");
+    backend.putIfAbsent("frontend.origin", "http://127.0.0.1");
+    backend.put("spotify.api.base.url", spotify.getBaseUrl() + "/v1");
+    backend.put("spotify.accounts.base.url", spotify.getBaseUrl());
+    backend.put("server.port", "0");
+    // System properties outrank application.properties, so they override its ${app.*} defaults as well.
+    backend.forEach(System::setProperty);
+
+    List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    List<String> baseUrls = new ArrayList<>();
+    try {
+      for (int i = 0; i < Integer.parseInt(options.get("instances")); i++) {
+        ConfigurableApplicationContext context = SpringApplication.run(MuzikantApplication.class);
+        contexts.add(context);
+        baseUrls.add("http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+      }
+      run(options, spotify, baseUrls);
+      if (redis != null) {
+        System.out.printf("redis commands=%d%n", redisCommands(contexts.get(0)));
+      }
+    } finally {
+      contexts.forEach(ConfigurableApplicationContext::close);
+      spotify.stop();
+      if (redis != null) {
+        redis.stop();
+      }
+    }
+  }
+
+  private static void run(Map<String, String> options, FakeSpotifyServer spotify, List<String> baseUrls) throws Exception {
+    int clients = Integer.parseInt(options.get("clients"));
+    Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+    List<String> playlistIds = playlistIds(options);
+    HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    long upstreamBefore = spotify.getPlaylistCalls() + spotify.getTrackPageCalls() + spotify.getEnrichCalls();
+    long tokensBefore = spotify.getTokenCalls();
+
+    List<Result> results = new ArrayList<>();
+    long started = System.nanoTime();
+    long deadline = started + duration.toNanos();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<Result>> futures = new ArrayList<>();
+      for (int i = 0; i < clients; i++) {
+        futures.add(executor.submit(() -> client(httpClient, baseUrls, options.get("path"), playlistIds, deadline)));
+      }
+      for (Future<Result> future : futures) {
+        results.add(future.get());
+      }
+    }
+    double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+    long[] latencies = results.stream().flatMapToLong(result -> result.latencies.stream().mapToLong(Long::longValue)).sorted().toArray();
+    Map<Integer, Integer> statuses = new TreeMap<>();
+    results.forEach(result -> result.statuses.forEach((status, count) -> statuses.merge(status, count, Integer::sum)));
+    long upstream = spotify.getPlaylistCalls() + spotify.getTrackPageCalls() + spotify.getEnrichCalls() - upstreamBefore;
+
+    System.out.println();
+    System.out.printf("clients=%d duration=%.1fs playlists=%d options=%s%n", clients, elapsedSeconds, playlistIds.size(), options);
+    System.out.printf("requests=%d throughput=%.1f req/s statuses=%s%n", latencies.length, latencies.length / elapsedSeconds, statuses);
+    System.out.printf(
+      "latency ms p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+      percentile(latencies, 0.50),
+      percentile(latencies, 0.90),
+      percentile(latencies, 0.99),
+      latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0
+    );
+    System.out.printf(
+      "upstream calls=%d perSecond=%.1f perClientRequest=%.3f rateLimited=%d notModified=%d tokenCalls=%d%n",
+      upstream,
+      upstream / elapsedSeconds,
+      latencies.length > 0 ? (double) upstream / latencies.length : 0,
+      spotify.getRateLimited(),
+      spotify.getNotModified(),
+      spotify.getTokenCalls() - tokensBefore
+    );
+  }
+
+  private static Result client(
+    HttpClient httpClient,
+    List<String> baseUrls,
+    String path,
+    List<String> playlistIds,
+    long deadline
+  ) {
+    Result result = new Result();
+    while (System.nanoTime() < deadline) {
+      String playlistId = playlistIds.get(ThreadLocalRandom.current().nextInt(playlistIds.size()));
+      String baseUrl = baseUrls.get(ThreadLocalRandom.current().nextInt(baseUrls.size()));
+      HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path.replace("{id}", playlistId)))
+        .timeout(Duration.ofSeconds(60))
+        .build();
+      long started = System.nanoTime();
+      int status;
+      try {
+        status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+      } catch (Exception e) {
+        status = -1;
+      }
+      result.latencies.add(System.nanoTime() - started);
+      result.statuses.merge(status, 1, Integer::sum);
+    }
+    return result;
+  }
+
+  // With sizes=100,1000,10000 the playlists cycle through those sizes; otherwise every playlist has the default size.
+  private static List<String> playlistIds(Map<String, String> options) {
+    int count = Integer.parseInt(options.get("playlists"));
+    String[] sizes = options.get("sizes").isBlank() ? new String[0] : options.get("sizes").split(",");
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      ids.add(sizes.length > 0 ? "s" + sizes[i % sizes.length].trim() + "n" + i : "load" + i);
+    }
+    return ids;
+  }
+
+  private static double percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+  }
+
+  // redis-server needs its port up front, so one is borrowed from the OS and handed over.
+  private static int freePort() throws Exception {
+    try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static long redisCommands(ConfigurableApplicationContext context) {
+    Properties stats = context.getBean(StringRedisTemplate.class)
+      .execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("stats"));
+    return stats != null ? Long.parseLong(stats.getProperty("total_commands_processed", "0")) : 0;
+  }
+
+  private static final class Result {
+    private final List<Long> latencies = new ArrayList<>();
+    private final Map<Integer, Integer> statuses = new TreeMap<>();
+  }
+}
@@ -0,0 +1,77 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+// Combining year-sorted playlists into one deck: concatenating with dedupe and re-sorting, as batch merges did before,
+// against the k-way merge in full and for the first 100 tracks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckMergeBenchmark {
+  @Param({"1000", "10000"})
+  public int tracks;
+
+  @Param({"2", "8"})
+  public int playlists;
+
+  private List<List<TrackDto>> sortedLists;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    SpotifyTrackPageParser pageParser = new SpotifyTrackPageParser(objectMapper);
+    sortedLists = new ArrayList<>();
+    for (int i = 0; i < playlists; i++) {
+      List<TrackDto> playlist = new ArrayList<>();
+      Set<String> seen = new HashSet<>();
+      for (byte[] body : SpotifyPageFixtures.pages(objectMapper, tracks, 42 + i)) {
+        SpotifyApiService.addTracks(playlist, seen, pageParser.parse(body).getTracks());
+      }
+      playlist.sort(SpotifyApiService.BY_YEAR);
+      sortedLists.add(playlist);
+    }
+  }
+
+  @Benchmark
+  public List<TrackDto> concatenateAndSort() {
+    List<TrackDto> merged = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (List<TrackDto> playlist : sortedLists) {
+      SpotifyApiService.addTracks(merged, seen, playlist);
+    }
+    merged.sort(SpotifyApiService.BY_YEAR);
+    return merged;
+  }
+
+  @Benchmark
+  public List<TrackDto> mergeAll() {
+    return new SortedTrackMerge(sortedLists).take(null);
+  }
+
+  @Benchmark
+  public List<TrackDto> mergeFirst100() {
+    return new SortedTrackMerge(sortedLists).take(100);
+  }
+}
@@ -0,0 +1,104 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pingisfun.muzikant.model.PlaylistResponse;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+// Whole-playlist CPU cost once the pages are in memory: cross-page dedupe, the year sort and writing the response,
+// separately and end to end, against the binding pipeline that preceded the streaming parser.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaylistAssemblyBenchmark {
+  @Param({"100", "1000", "10000"})
+  public int tracks;
+
+  private ObjectMapper objectMapper;
+  private SpotifyTrackPageParser pageParser;
+  private List<byte[]> pageBodies;
+  private List<SpotifyTrackPage> pages;
+  private List<TrackDto> unsorted;
+  private PlaylistResponse playlist;
+
+  @Setup
+  public void setUp() throws IOException {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    pageParser = new SpotifyTrackPageParser(objectMapper);
+    pageBodies = SpotifyPageFixtures.pages(objectMapper, tracks, 42);
+    pages = new ArrayList<>();
+    for (byte[] body : pageBodies) {
+      pages.add(pageParser.parse(body));
+    }
+    unsorted = addTracks();
+    List<TrackDto> sorted = new ArrayList<>(unsorted);
+    sorted.sort(SpotifyApiService.BY_YEAR);
+    playlist = new PlaylistResponse("Benchmark playlist", sorted);
+  }
+
+  @Benchmark
+  public List<TrackDto> addTracks() {
+    List<TrackDto> results = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (SpotifyTrackPage page : pages) {
+      SpotifyApiService.addTracks(results, seen, page.getTracks());
+    }
+    return results;
+  }
+
+  // Includes copying the list, since the sort runs in place.
+  @Benchmark
+  public List<TrackDto> sortByYear() {
+    List<TrackDto> results = new ArrayList<>(unsorted);
+    results.sort(SpotifyApiService.BY_YEAR);
+    return results;
+  }
+
+  @Benchmark
+  public byte[] serializeResponse() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(playlist);
+  }
+
+  @Benchmark
+  public List<TrackDto> streamingPipeline() throws IOException {
+    List<TrackDto> results = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (byte[] body : pageBodies) {
+      SpotifyApiService.addTracks(results, seen, pageParser.parse(body).getTracks());
+    }
+    results.sort(SpotifyApiService.BY_YEAR);
+    return results;
+  }
+
+  @Benchmark
+  public List<TrackDto> bindingPipeline() throws IOException {
+    List<TrackDto> results = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (byte[] body : pageBodies) {
+      LegacyPageBinding.addTracks(results, seen, LegacyPageBinding.bind(objectMapper, body).items);
+    }
+    results.sort(SpotifyApiService.BY_YEAR);
+    return results;
+  }
+}
@@ -0,0 +1,141 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+// One 100-item page at a time: the streaming parser against the Jackson binding and mapping it replaced, plus the
+// release-year extraction and the artist-name joining on their own.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackPageParseBenchmark {
+  private static final int RELEASE_DATES = 1_000;
+  private static final int ARTIST_LISTS = 1_000;
+  private static final String[] ARTIST_NAMES = {"Robyn", "Kent", "First Aid Kit", "José González", "", " ", null};
+
+  private ObjectMapper objectMapper;
+  private SpotifyTrackPageParser pageParser;
+  private List<byte[]> pages;
+  private int nextPage;
+  private String[] releaseDates;
+  private char[][] releaseDateChars;
+  private List<List<LegacyPageBinding.SpotifyArtist>> artistLists;
+  private byte[][] artistArrays;
+
+  @Setup
+  public void setUp() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    pageParser = new SpotifyTrackPageParser(objectMapper);
+    pages = SpotifyPageFixtures.pages(objectMapper, 2_000, 42);
+    Random random = new Random(42);
+    releaseDates = new String[RELEASE_DATES];
+    releaseDateChars = new char[RELEASE_DATES][];
+    for (int i = 0; i < RELEASE_DATES; i++) {
+      int year = 1960 + random.nextInt(65);
+      releaseDates[i] = switch (random.nextInt(3)) {
+        case 0 -> String.valueOf(year);
+        case 1 -> year + "-0" + (1 + random.nextInt(9));
+        default -> year + "-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10);
+      };
+      releaseDateChars[i] = releaseDates[i].toCharArray();
+    }
+    // One to three artists as on the pages, with the odd blank or missing name.
+    artistLists = new ArrayList<>();
+    artistArrays = new byte[ARTIST_LISTS][];
+    for (int i = 0; i < ARTIST_LISTS; i++) {
+      List<LegacyPageBinding.SpotifyArtist> artists = new ArrayList<>();
+      ArrayNode array = objectMapper.createArrayNode();
+      int count = 1 + (random.nextInt(10) < 7 ? 0 : random.nextInt(3));
+      for (int j = 0; j < count; j++) {
+        LegacyPageBinding.SpotifyArtist artist = new LegacyPageBinding.SpotifyArtist();
+        artist.name = ARTIST_NAMES[random.nextInt(ARTIST_NAMES.length)];
+        artists.add(artist);
+        array.addObject().put("name", artist.name);
+      }
+      artistLists.add(artists);
+      artistArrays[i] = array.toString().getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  // Pages rotate so the numbers are not skewed by one page's shape staying hot in the branch predictor.
+  private byte[] nextPage() {
+    byte[] page = pages.get(nextPage);
+    nextPage = (nextPage + 1) % pages.size();
+    return page;
+  }
+
+  @Benchmark
+  public SpotifyTrackPage streamingParse() throws IOException {
+    return pageParser.parse(nextPage());
+  }
+
+  @Benchmark
+  public List<TrackDto> bindingParse() throws IOException {
+    LegacyPageBinding.PlaylistTracksResponse response = LegacyPageBinding.bind(objectMapper, nextPage());
+    List<TrackDto> tracks = new ArrayList<>();
+    LegacyPageBinding.addTracks(tracks, new HashSet<>(), response.items);
+    return tracks;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RELEASE_DATES)
+  public void parseYear(Blackhole blackhole) {
+    for (char[] releaseDate : releaseDateChars) {
+      blackhole.consume(SpotifyTrackPageParser.parseYear(releaseDate, 0));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RELEASE_DATES)
+  public void extractYear(Blackhole blackhole) {
+    for (String releaseDate : releaseDates) {
+      blackhole.consume(LegacyPageBinding.extractYear(releaseDate));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ARTIST_LISTS)
+  public void buildArtistNames(Blackhole blackhole) {
+    for (List<LegacyPageBinding.SpotifyArtist> artists : artistLists) {
+      blackhole.consume(LegacyPageBinding.buildArtistNames(artists));
+    }
+  }
+
+  // Includes reading the array's tokens, which the streaming parser does in the same pass; buildArtistNames gets
+  // its list already bound.
+  @Benchmark
+  @OperationsPerInvocation(ARTIST_LISTS)
+  public void readArtistNames(Blackhole blackhole) throws IOException {
+    for (byte[] artists : artistArrays) {
+      try (JsonParser parser = objectMapper.getFactory().createParser(artists)) {
+        parser.nextToken();
+        blackhole.consume(SpotifyTrackPageParser.readArtistNames(parser));
+      }
+    }
+  }
+}
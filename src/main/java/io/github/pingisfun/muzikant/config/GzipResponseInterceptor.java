@@ -0,0 +1,78 @@
+package io.github.pingisfun.muzikant.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+// java.net.http.HttpClient does not negotiate compression, so requests advertise gzip and responses are inflated here.
+public class GzipResponseInterceptor implements ClientHttpRequestInterceptor {
+  @Override
+  public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+    throws IOException {
+    request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+    ClientHttpResponse response = execution.execute(request, body);
+    String encoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+    if (encoding == null || !encoding.trim().equalsIgnoreCase("gzip")) {
+      return response;
+    }
+    return new GzipClientHttpResponse(response);
+  }
+
+  private static final class GzipClientHttpResponse implements ClientHttpResponse {
+    private final ClientHttpResponse delegate;
+    private final HttpHeaders headers;
+    private InputStream body;
+
+    private GzipClientHttpResponse(ClientHttpResponse delegate) {
+      this.delegate = delegate;
+      HttpHeaders inflated = new HttpHeaders();
+      inflated.putAll(delegate.getHeaders());
+      inflated.remove(HttpHeaders.CONTENT_ENCODING);
+      inflated.remove(HttpHeaders.CONTENT_LENGTH);
+      this.headers = HttpHeaders.readOnlyHttpHeaders(inflated);
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() throws IOException {
+      return delegate.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+      return delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      if (body == null) {
+        // Bodies of error and 304 responses may be empty even when a gzip encoding is declared.
+        PushbackInputStream raw = new PushbackInputStream(delegate.getBody(), 1);
+        int first = raw.read();
+        if (first == -1) {
+          body = InputStream.nullInputStream();
+        } else {
+          raw.unread(first);
+          body = new GZIPInputStream(raw);
+        }
+      }
+      return body;
+    }
+
+    @Override
+    public void close() {
+      delegate.close();
+    }
+  }
+}
@@ -1,13 +1,47 @@
 package io.github.pingisfun.muzikant.config;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfig {
+  // Closed with the context so no HttpClient task outlives it.
+  @Bean(destroyMethod = "close")
+  public ExecutorService spotifyHttpExecutor() {
+    return Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  // One HttpClient is shared by every Spotify call so connections, TLS sessions and HTTP/2 streams are reused. Its
+  // HTTP/1.1 pool limits are JVM flags, see the README.
+  @Bean
+  public HttpClient spotifyHttpClient(
+    @Value("${spotify.http.connect.timeout:5s}") Duration connectTimeout,
+    ExecutorService spotifyHttpExecutor
+  ) {
+    return HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_2)
+      .connectTimeout(connectTimeout)
+      .followRedirects(HttpClient.Redirect.NORMAL)
+      .executor(spotifyHttpExecutor)
+      .build();
+  }
+
   @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
+  public RestTemplate restTemplate(
+    HttpClient spotifyHttpClient,
+    @Value("${spotify.http.read.timeout:10s}") Duration readTimeout
+  ) {
+    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(spotifyHttpClient);
+    requestFactory.setReadTimeout(readTimeout);
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
+    restTemplate.getInterceptors().add(new GzipResponseInterceptor());
+    return restTemplate;
   }
 }
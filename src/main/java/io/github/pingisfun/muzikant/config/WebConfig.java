@@ -17,7 +17,8 @@ public class WebConfig implements WebMvcConfigurer {
   public void addCorsMappings(CorsRegistry registry) {
     registry.addMapping("/api/**")
       .allowedOrigins(frontendOrigin)
-      .allowedMethods("GET")
-      .allowedHeaders("*");
+      .allowedMethods("GET", "POST")
+      .allowedHeaders("*")
+      .exposedHeaders("ETag", "Age", "X-Playlist-Stale");
   }
 }
@@ -5,6 +5,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 @RestControllerAdvice
 public class ApiExceptionHandler {
@@ -12,4 +13,9 @@ public class ApiExceptionHandler {
   public ResponseEntity<String> handleSpotifyRateLimit(SpotifyRateLimitException ex) {
     return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
   }
+
+  @ExceptionHandler(AsyncRequestTimeoutException.class)
+  public ResponseEntity<String> handleAsyncTimeout(AsyncRequestTimeoutException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Playlist is still loading. Please try again shortly.");
+  }
 }
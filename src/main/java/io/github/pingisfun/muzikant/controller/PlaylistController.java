@@ -1,28 +1,206 @@
 package io.github.pingisfun.muzikant.controller;
 
-import io.github.pingisfun.muzikant.model.PlaylistResponse;
-import io.github.pingisfun.muzikant.service.SpotifyApiService;
+import io.github.pingisfun.muzikant.model.PlaylistBatchRequest;
+import io.github.pingisfun.muzikant.model.PlaylistBatchResponse;
+import io.github.pingisfun.muzikant.service.EncodedPlaylist;
+import io.github.pingisfun.muzikant.service.PlaylistQuery;
+import io.github.pingisfun.muzikant.service.PlaylistResult;
+import io.github.pingisfun.muzikant.service.PlaylistService;
+import io.github.pingisfun.muzikant.service.RequestTimeline;
+import io.github.pingisfun.muzikant.util.SpotifyUrlParser;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api")
 public class PlaylistController {
-  private final SpotifyApiService apiService;
+  private static final Logger log = LoggerFactory.getLogger(PlaylistController.class);
+  private static final String STALE_HEADER = "X-Playlist-Stale";
+  private static final String SERVER_TIMING_HEADER = "Server-Timing";
+  private static final String TIMING_ALLOW_ORIGIN_HEADER = "Timing-Allow-Origin";
 
-  public PlaylistController(SpotifyApiService apiService) {
-    this.apiService = apiService;
+  private final PlaylistService playlistService;
+  private final int maxBatchPlaylists;
+  private final boolean timingHeader;
+  private final long timingSlowNanos;
+  private final String frontendOrigin;
+
+  public PlaylistController(
+    PlaylistService playlistService,
+    @Value("${spotify.batch.max.playlists:20}") int maxBatchPlaylists,
+    @Value("${spotify.timing.header:true}") boolean timingHeader,
+    @Value("${spotify.timing.slow:1s}") Duration timingSlow,
+    @Value("${frontend.origin}") String frontendOrigin
+  ) {
+    this.playlistService = playlistService;
+    this.maxBatchPlaylists = maxBatchPlaylists;
+    this.timingHeader = timingHeader;
+    this.timingSlowNanos = timingSlow.toNanos();
+    this.frontendOrigin = frontendOrigin;
   }
 
+  // The servlet thread is released while the playlist loads; spring.mvc.async.request-timeout bounds the wait.
+  // Without query parameters the whole playlist is returned; with any of them the response is a window of it.
+  // The response's Server-Timing header and a log line say where the request's time went.
   @GetMapping(value = "/playlist/{playlistId}")
-  public ResponseEntity<PlaylistResponse> playlist(@PathVariable String playlistId) {
+  public CompletableFuture<ResponseEntity<?>> playlist(
+    @PathVariable String playlistId,
+    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+    @RequestParam(value = "offset", required = false) Integer offset,
+    @RequestParam(value = "limit", required = false) Integer limit,
+    @RequestParam(value = "yearFrom", required = false) Integer yearFrom,
+    @RequestParam(value = "yearTo", required = false) Integer yearTo,
+    @RequestParam(value = "random", required = false) Integer random,
+    @RequestParam(value = "seed", required = false) Long seed
+  ) {
+    PlaylistQuery query = new PlaylistQuery(offset, limit, yearFrom, yearTo, random, seed);
+    if (playlistId == null || playlistId.isBlank() || !query.isValid()) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    RequestTimeline timeline = RequestTimeline.start();
+    CompletableFuture<ResponseEntity<?>> response;
+    if (query.isEmpty()) {
+      response = playlistService.getEncodedPlaylistAsync(playlistId, timeline)
+        .thenApply(result -> encodedResponse(result, ifNoneMatch, acceptEncoding));
+    } else {
+      response = playlistService.queryPlaylistAsync(playlistId, query, timeline)
+        .thenApply(result -> withStaleness(ResponseEntity.ok(), result).body(result.getValue()));
+    }
+    return response
+      .<ResponseEntity<?>>thenApply(entity -> withTiming(entity, timeline))
+      .whenComplete((entity, error) -> logTiming(playlistId, entity, error, timeline));
+  }
+
+  private ResponseEntity<?> withTiming(ResponseEntity<?> response, RequestTimeline timeline) {
+    if (!timingHeader) {
+      return response;
+    }
+    HttpHeaders headers = new HttpHeaders();
+    headers.putAll(response.getHeaders());
+    headers.set(SERVER_TIMING_HEADER, timeline.toServerTiming());
+    // Lets the frontend read the timings through the Resource Timing API, not only in devtools.
+    headers.set(TIMING_ALLOW_ORIGIN_HEADER, frontendOrigin);
+    return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+  }
+
+  // Slow requests log at INFO so they show in production logs; the rest only at DEBUG.
+  private void logTiming(String playlistId, ResponseEntity<?> response, Throwable error, RequestTimeline timeline) {
+    boolean slow = timeline.elapsedNanos() >= timingSlowNanos;
+    if (!(slow ? log.isInfoEnabled() : log.isDebugEnabled())) {
+      return;
+    }
+    String status = response != null ? String.valueOf(response.getStatusCode().value()) : "error";
+    String message = "Playlist request timing. playlistId={}, status={}, {}";
+    if (slow) {
+      log.info(message, playlistId, status, timeline.toLogFields());
+    } else {
+      log.debug(message, playlistId, status, timeline.toLogFields());
+    }
+  }
+
+  // Writes the stored bytes as they are: 304 when the client already has them, gzip when it accepts that.
+  private static ResponseEntity<?> encodedResponse(
+    PlaylistResult<EncodedPlaylist> result,
+    String ifNoneMatch,
+    String acceptEncoding
+  ) {
+    EncodedPlaylist encoded = result.getValue();
+    boolean gzip = acceptsGzip(acceptEncoding);
+    if (encoded.matches(ifNoneMatch)) {
+      return withStaleness(ResponseEntity.status(HttpStatus.NOT_MODIFIED), result)
+        .eTag(encoded.getEtag(gzip))
+        .cacheControl(CacheControl.noCache())
+        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+        .build();
+    }
+    ResponseEntity.BodyBuilder response = withStaleness(ResponseEntity.ok(), result)
+      .eTag(encoded.getEtag(gzip))
+      .cacheControl(CacheControl.noCache())
+      .varyBy(HttpHeaders.ACCEPT_ENCODING)
+      .contentType(MediaType.APPLICATION_JSON);
+    if (gzip) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(encoded.getGzip());
+    }
+    return response.body(encoded.getJson());
+  }
+
+  // A stale result says how old it is, so clients can tell the playlist may have changed on Spotify since.
+  private static ResponseEntity.BodyBuilder withStaleness(ResponseEntity.BodyBuilder response, PlaylistResult<?> result) {
+    if (result.isStale()) {
+      long age = Math.max(0, Duration.between(result.getFetchedAt(), Instant.now()).toSeconds());
+      response.header(HttpHeaders.AGE, String.valueOf(age)).header(STALE_HEADER, "true");
+    }
+    return response;
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if (parts[0].trim().equalsIgnoreCase("gzip")) {
+        return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+
+  // Accepts playlist ids or Spotify playlist URLs; repeated playlists are loaded once.
+  @PostMapping(value = "/playlists/batch")
+  public CompletableFuture<ResponseEntity<PlaylistBatchResponse>> playlistBatch(@RequestBody PlaylistBatchRequest request) {
+    if (request == null || request.getPlaylists() == null || request.getLimit() != null && request.getLimit() < 0) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    Set<String> playlistIds = new LinkedHashSet<>();
+    for (String playlist : request.getPlaylists()) {
+      String playlistId = SpotifyUrlParser.extractPlaylistId(playlist);
+      if (playlistId != null && !playlistId.isBlank()) {
+        playlistIds.add(playlistId);
+      }
+    }
+    if (playlistIds.isEmpty() || playlistIds.size() > maxBatchPlaylists) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    return playlistService.getPlaylistsAsync(List.copyOf(playlistIds), request.isMerge(), request.getLimit())
+      .thenApply(ResponseEntity::ok);
+  }
+
+  // Streams the playlist as Server-Sent Events while pages load, ending with the year-sorted track ids when requested.
+  @GetMapping(value = "/playlist/{playlistId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> playlistStream(
+    @PathVariable String playlistId,
+    @RequestParam(value = "order", defaultValue = "true") boolean includeOrder
+  ) {
     if (playlistId == null || playlistId.isBlank()) {
       return ResponseEntity.badRequest().build();
     }
-    PlaylistResponse playlist = apiService.fetchPlaylist(playlistId);
-    return ResponseEntity.ok(playlist);
+    SseEmitter emitter = new SseEmitter();
+    PlaylistEventStream stream = new PlaylistEventStream(emitter);
+    playlistService.streamPlaylist(playlistId, stream)
+      .whenComplete((playlist, error) -> stream.finish(playlist, error, includeOrder));
+    return ResponseEntity.ok(emitter);
   }
 }
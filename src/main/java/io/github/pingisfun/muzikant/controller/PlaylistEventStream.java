@@ -0,0 +1,70 @@
+package io.github.pingisfun.muzikant.controller;
+
+import io.github.pingisfun.muzikant.model.PlaylistResponse;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import io.github.pingisfun.muzikant.service.PlaylistPageListener;
+import io.github.pingisfun.muzikant.service.SpotifyRateLimitException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Writes a playlist as Server-Sent Events: "playlist" with the name, "tracks" per page, then "order" or "error". "reset"
+// tells the client to drop what it received, because the load failed and the last fetched copy follows instead.
+class PlaylistEventStream implements PlaylistPageListener {
+  private static final Logger log = LoggerFactory.getLogger(PlaylistEventStream.class);
+
+  private final SseEmitter emitter;
+  private volatile boolean open = true;
+
+  PlaylistEventStream(SseEmitter emitter) {
+    this.emitter = emitter;
+    emitter.onCompletion(() -> open = false);
+    emitter.onTimeout(() -> open = false);
+    emitter.onError(error -> open = false);
+  }
+
+  @Override
+  public void onName(String name) {
+    send("playlist", Collections.singletonMap("name", name));
+  }
+
+  @Override
+  public void onTracks(List<TrackDto> tracks) {
+    send("tracks", tracks);
+  }
+
+  @Override
+  public void onReset() {
+    send("reset", Collections.emptyMap());
+  }
+
+  void finish(PlaylistResponse playlist, Throwable error, boolean includeOrder) {
+    if (error != null) {
+      Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+      String message = cause instanceof SpotifyRateLimitException ? cause.getMessage() : "Failed to load playlist.";
+      log.warn("Playlist stream failed.", cause);
+      send("error", Collections.singletonMap("message", message));
+    } else if (includeOrder) {
+      List<String> order = playlist.getTracks().stream().map(TrackDto::getId).toList();
+      send("order", order);
+    }
+    emitter.complete();
+  }
+
+  private void send(String event, Object data) {
+    if (!open) {
+      return;
+    }
+    try {
+      emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+    } catch (IOException | IllegalStateException e) {
+      open = false;
+      log.debug("Playlist stream closed before event {} was sent.", event);
+    }
+  }
+}
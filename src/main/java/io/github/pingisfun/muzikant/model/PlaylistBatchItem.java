@@ -0,0 +1,72 @@
+package io.github.pingisfun.muzikant.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlaylistBatchItem {
+  private String playlistId;
+  private String name;
+  private Integer trackCount;
+  private List<TrackDto> tracks;
+  private String error;
+  private Boolean stale;
+
+  public PlaylistBatchItem() {}
+
+  public PlaylistBatchItem(String playlistId, String name, Integer trackCount, List<TrackDto> tracks, String error) {
+    this.playlistId = playlistId;
+    this.name = name;
+    this.trackCount = trackCount;
+    this.tracks = tracks;
+    this.error = error;
+  }
+
+  public String getPlaylistId() {
+    return playlistId;
+  }
+
+  public void setPlaylistId(String playlistId) {
+    this.playlistId = playlistId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public Integer getTrackCount() {
+    return trackCount;
+  }
+
+  public void setTrackCount(Integer trackCount) {
+    this.trackCount = trackCount;
+  }
+
+  public List<TrackDto> getTracks() {
+    return tracks;
+  }
+
+  public void setTracks(List<TrackDto> tracks) {
+    this.tracks = tracks;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public Boolean getStale() {
+    return stale;
+  }
+
+  public void setStale(Boolean stale) {
+    this.stale = stale;
+  }
+}
@@ -0,0 +1,33 @@
+package io.github.pingisfun.muzikant.model;
+
+import java.util.List;
+
+public class PlaylistBatchRequest {
+  private List<String> playlists;
+  private boolean merge = true;
+  private Integer limit;
+
+  public List<String> getPlaylists() {
+    return playlists;
+  }
+
+  public void setPlaylists(List<String> playlists) {
+    this.playlists = playlists;
+  }
+
+  public boolean isMerge() {
+    return merge;
+  }
+
+  public void setMerge(boolean merge) {
+    this.merge = merge;
+  }
+
+  public Integer getLimit() {
+    return limit;
+  }
+
+  public void setLimit(Integer limit) {
+    this.limit = limit;
+  }
+}
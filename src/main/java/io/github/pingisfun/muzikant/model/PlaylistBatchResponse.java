@@ -0,0 +1,33 @@
+package io.github.pingisfun.muzikant.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlaylistBatchResponse {
+  private List<PlaylistBatchItem> playlists;
+  private List<TrackDto> tracks;
+
+  public PlaylistBatchResponse() {}
+
+  public PlaylistBatchResponse(List<PlaylistBatchItem> playlists, List<TrackDto> tracks) {
+    this.playlists = playlists;
+    this.tracks = tracks;
+  }
+
+  public List<PlaylistBatchItem> getPlaylists() {
+    return playlists;
+  }
+
+  public void setPlaylists(List<PlaylistBatchItem> playlists) {
+    this.playlists = playlists;
+  }
+
+  public List<TrackDto> getTracks() {
+    return tracks;
+  }
+
+  public void setTracks(List<TrackDto> tracks) {
+    this.tracks = tracks;
+  }
+}
@@ -0,0 +1,46 @@
+package io.github.pingisfun.muzikant.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+// A window of a playlist: total counts the tracks matching the year filter (or the sample size), offset is where the
+// returned tracks start within them, and seed reproduces a random sample.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlaylistPageResponse extends PlaylistResponse {
+  private int total;
+  private int offset;
+  private Long seed;
+
+  public PlaylistPageResponse() {}
+
+  public PlaylistPageResponse(String name, List<TrackDto> tracks, int total, int offset, Long seed) {
+    super(name, tracks);
+    this.total = total;
+    this.offset = offset;
+    this.seed = seed;
+  }
+
+  public int getTotal() {
+    return total;
+  }
+
+  public void setTotal(int total) {
+    this.total = total;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset(int offset) {
+    this.offset = offset;
+  }
+
+  public Long getSeed() {
+    return seed;
+  }
+
+  public void setSeed(Long seed) {
+    this.seed = seed;
+  }
+}
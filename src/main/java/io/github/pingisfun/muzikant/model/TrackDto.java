@@ -1,5 +1,7 @@
 package io.github.pingisfun.muzikant.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class TrackDto {
   private String id;
   private String title;
@@ -7,6 +9,13 @@ public class TrackDto {
   private String album;
   private Integer year;
   private String spotifyUrl;
+  // Only read while the playlist is assembled, to pick tracks whose release year needs a closer look.
+  @JsonIgnore
+  private String albumId;
+  @JsonIgnore
+  private String albumType;
+  @JsonIgnore
+  private String releaseDatePrecision;
 
   public TrackDto() {}
 
@@ -66,4 +75,28 @@ public class TrackDto {
   public void setSpotifyUrl(String spotifyUrl) {
     this.spotifyUrl = spotifyUrl;
   }
+
+  public String getAlbumId() {
+    return albumId;
+  }
+
+  public void setAlbumId(String albumId) {
+    this.albumId = albumId;
+  }
+
+  public String getAlbumType() {
+    return albumType;
+  }
+
+  public void setAlbumType(String albumType) {
+    this.albumType = albumType;
+  }
+
+  public String getReleaseDatePrecision() {
+    return releaseDatePrecision;
+  }
+
+  public void setReleaseDatePrecision(String releaseDatePrecision) {
+    this.releaseDatePrecision = releaseDatePrecision;
+  }
 }
@@ -0,0 +1,76 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pingisfun.muzikant.model.PlaylistResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+// The finished JSON body of a playlist, raw and gzip-compressed, with a strong ETag over the raw bytes. The gzip bytes
+// are a different representation, so they carry the same tag with a -gzip suffix. Encoded once per snapshot so repeat
+// requests write stored bytes instead of serializing the track list again.
+public class EncodedPlaylist {
+  private final byte[] json;
+  private final byte[] gzip;
+  private final String tag;
+
+  private EncodedPlaylist(byte[] json, byte[] gzip, String tag) {
+    this.json = json;
+    this.gzip = gzip;
+    this.tag = tag;
+  }
+
+  public static EncodedPlaylist encode(ObjectMapper objectMapper, PlaylistResponse playlist) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(playlist);
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+      try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+        out.write(json);
+      }
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+      String tag = Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 27);
+      return new EncodedPlaylist(json, compressed.toByteArray(), tag);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize playlist", e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public byte[] getJson() {
+    return json;
+  }
+
+  public byte[] getGzip() {
+    return gzip;
+  }
+
+  public String getEtag(boolean gzipped) {
+    return gzipped ? "\"" + tag + "-gzip\"" : "\"" + tag + "\"";
+  }
+
+  // If-None-Match uses the weak comparison, so a W/ prefix added by a proxy still matches, and either representation's
+  // tag means the client holds the current content.
+  public boolean matches(String ifNoneMatch) {
+    if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String candidateTag = candidate.trim();
+      if (candidateTag.startsWith("W/")) {
+        candidateTag = candidateTag.substring(2);
+      }
+      if (candidateTag.equals("*") || candidateTag.equals(getEtag(false)) || candidateTag.equals(getEtag(true))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
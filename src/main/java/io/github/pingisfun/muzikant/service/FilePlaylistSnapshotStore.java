@@ -0,0 +1,180 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+// Keeps the last fetched snapshot of each playlist on disk as one gzip-compressed JSON file, so a restarted process
+// can answer from disk before Spotify is asked again. Files are replaced atomically, unreadable files are deleted, and
+// the least recently used files are removed once the directory grows past spotify.snapshot.max.size.
+@ConditionalOnProperty(
+  name = "spotify.shared.store",
+  havingValue = "local",
+  matchIfMissing = true
+)
+@Component
+public class FilePlaylistSnapshotStore implements PlaylistSnapshotStore {
+  private static final Logger log = LoggerFactory.getLogger(FilePlaylistSnapshotStore.class);
+  private static final Pattern PLAYLIST_ID = Pattern.compile("[A-Za-z0-9]{1,64}");
+  private static final String SUFFIX = ".json.gz";
+
+  private final ObjectMapper objectMapper;
+  private final Path directory;
+  private final long maxBytes;
+  private final Map<String, Long> fileSizes = new ConcurrentHashMap<>();
+  private final AtomicLong totalBytes = new AtomicLong();
+  private volatile boolean indexed;
+
+  public FilePlaylistSnapshotStore(
+    ObjectMapper objectMapper,
+    @Value("${spotify.snapshot.dir:data/snapshots}") String directory,
+    @Value("${spotify.snapshot.max.size:256MB}") DataSize maxSize
+  ) {
+    this.objectMapper = objectMapper;
+    this.directory = directory == null || directory.isBlank() ? null : Path.of(directory.trim());
+    this.maxBytes = maxSize.toBytes();
+  }
+
+  public boolean isEnabled() {
+    return directory != null;
+  }
+
+  @Override
+  public PlaylistSnapshot load(String playlistId) {
+    if (!isEnabled() || !PLAYLIST_ID.matcher(playlistId).matches()) {
+      return null;
+    }
+    ensureIndexed();
+    if (!fileSizes.containsKey(playlistId)) {
+      return null;
+    }
+    Path file = fileFor(playlistId);
+    try (InputStream in = Files.newInputStream(file)) {
+      PlaylistSnapshot snapshot = PlaylistSnapshotCodec.read(objectMapper, playlistId, in);
+      Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+      return snapshot;
+    } catch (NoSuchFileException e) {
+      forget(playlistId);
+      return null;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Discarding unreadable playlist snapshot. playlistId={}, file={}", playlistId, file, e);
+      delete(playlistId);
+      return null;
+    }
+  }
+
+  @Override
+  public void save(PlaylistSnapshot snapshot) {
+    String playlistId = snapshot.getPlaylistId();
+    if (!isEnabled() || !PLAYLIST_ID.matcher(playlistId).matches()) {
+      return;
+    }
+    ensureIndexed();
+    Path temp = directory.resolve(playlistId + "." + UUID.randomUUID() + ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        PlaylistSnapshotCodec.write(objectMapper, snapshot, out);
+      }
+      long size = Files.size(temp);
+      Files.move(temp, fileFor(playlistId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      Long previous = fileSizes.put(playlistId, size);
+      totalBytes.addAndGet(size - (previous != null ? previous : 0));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to write playlist snapshot. playlistId={}", playlistId, e);
+      deleteQuietly(temp);
+      return;
+    }
+    if (totalBytes.get() > maxBytes) {
+      evict();
+    }
+  }
+
+  private synchronized void ensureIndexed() {
+    if (indexed) {
+      return;
+    }
+    try {
+      Files.createDirectories(directory);
+      try (Stream<Path> files = Files.list(directory)) {
+        for (Path file : (Iterable<Path>) files::iterator) {
+          String fileName = file.getFileName().toString();
+          if (fileName.endsWith(".tmp")) {
+            deleteQuietly(file);
+          } else if (fileName.endsWith(SUFFIX)) {
+            long size = Files.size(file);
+            fileSizes.put(fileName.substring(0, fileName.length() - SUFFIX.length()), size);
+            totalBytes.addAndGet(size);
+          }
+        }
+      }
+      log.info("Playlist snapshot store ready. dir={}, snapshots={}, bytes={}", directory, fileSizes.size(), totalBytes.get());
+    } catch (IOException e) {
+      log.warn("Failed to index playlist snapshot directory {}.", directory, e);
+    }
+    indexed = true;
+  }
+
+  private synchronized void evict() {
+    List<Map.Entry<String, FileTime>> byAge = new ArrayList<>();
+    for (String playlistId : fileSizes.keySet()) {
+      try {
+        byAge.add(Map.entry(playlistId, Files.getLastModifiedTime(fileFor(playlistId))));
+      } catch (IOException e) {
+        forget(playlistId);
+      }
+    }
+    byAge.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+    for (Map.Entry<String, FileTime> entry : byAge) {
+      if (totalBytes.get() <= maxBytes) {
+        break;
+      }
+      delete(entry.getKey());
+    }
+  }
+
+  private void delete(String playlistId) {
+    deleteQuietly(fileFor(playlistId));
+    forget(playlistId);
+  }
+
+  private void forget(String playlistId) {
+    Long size = fileSizes.remove(playlistId);
+    if (size != null) {
+      totalBytes.addAndGet(-size);
+    }
+  }
+
+  private void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Failed to delete {}.", file, e);
+    }
+  }
+
+  private Path fileFor(String playlistId) {
+    return directory.resolve(playlistId + SUFFIX);
+  }
+}
@@ -0,0 +1,69 @@
+package io.github.pingisfun.muzikant.service;
+
+import io.github.pingisfun.muzikant.util.SpotifyUrlParser;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Loads the playlists in spotify.hot.playlists once SpotifyStartupValidator has passed, then revalidates each one
+// spotify.hot.refresh.ahead before its cache entry expires. All of it runs at BACKGROUND priority, so it only spends
+// Spotify budget that client requests leave unused.
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class HotPlaylistWarmer implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(HotPlaylistWarmer.class);
+
+  private final PlaylistService playlistService;
+  private final List<String> playlistIds;
+  private final Duration refreshAhead;
+  private volatile boolean started;
+
+  public HotPlaylistWarmer(
+    PlaylistService playlistService,
+    @Value("${spotify.hot.playlists:}") String playlists,
+    @Value("${spotify.hot.refresh.ahead:2m}") Duration refreshAhead,
+    @Value("${spotify.cache.ttl:10m}") Duration ttl
+  ) {
+    this.playlistService = playlistService;
+    this.playlistIds = Arrays.stream(playlists.split(","))
+      .map(SpotifyUrlParser::extractPlaylistId)
+      .filter(playlistId -> playlistId != null && !playlistId.isBlank())
+      .distinct()
+      .toList();
+    // Refreshing more than half a TTL early would revalidate on nearly every tick.
+    this.refreshAhead = refreshAhead.compareTo(ttl.dividedBy(2)) > 0 ? ttl.dividedBy(2) : refreshAhead;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (playlistIds.isEmpty()) {
+      return;
+    }
+    log.info("Warming hot playlists. count={}, refreshAhead={}", playlistIds.size(), refreshAhead);
+    started = true;
+    refreshDue();
+  }
+
+  @Scheduled(fixedDelay = 15, timeUnit = TimeUnit.SECONDS)
+  public void refreshDue() {
+    if (!started) {
+      return;
+    }
+    for (String playlistId : playlistIds) {
+      playlistService.refreshAsync(playlistId, refreshAhead).exceptionally(e -> {
+        log.warn("Hot playlist refresh failed. playlistId={}", playlistId, e);
+        return null;
+      });
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package io.github.pingisfun.muzikant.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// A token bucket refilled at spotify.rate.requests per spotify.rate.window. A pause empties it, so once the pause ends
+// calls resume one refill interval apart instead of together.
+@ConditionalOnProperty(
+  name = "spotify.shared.store",
+  havingValue = "local",
+  matchIfMissing = true
+)
+@Component
+public class LocalSpotifyRateState implements SpotifyRateState {
+  private final int capacity;
+  private final double tokensPerNano;
+  private double tokens;
+  private long refilledAt;
+  private Instant pausedUntil;
+
+  public LocalSpotifyRateState(
+    @Value("${spotify.rate.requests:100}") int requestsPerWindow,
+    @Value("${spotify.rate.window:30s}") Duration window
+  ) {
+    this.capacity = Math.max(1, requestsPerWindow);
+    this.tokensPerNano = (double) capacity / Math.max(1, window.toNanos());
+    this.tokens = capacity;
+    this.refilledAt = System.nanoTime();
+  }
+
+  @Override
+  public synchronized long tryTake(double keepFree) {
+    long now = System.nanoTime();
+    if (now - refilledAt > 0) {
+      tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+      refilledAt = now;
+    }
+    double needed = 1 + Math.min(capacity - 1, Math.max(0, keepFree) * capacity);
+    if (tokens >= needed) {
+      tokens -= 1;
+      return 0;
+    }
+    return Math.max(1, (long) Math.ceil((needed - tokens) / tokensPerNano));
+  }
+
+  @Override
+  public synchronized void pause(Instant until) {
+    if (pausedUntil == null || until.isAfter(pausedUntil)) {
+      pausedUntil = until;
+    }
+    tokens = 0;
+    long pauseEnd = System.nanoTime() + Math.max(0, Duration.between(Instant.now(), pausedUntil).toNanos());
+    if (pauseEnd - refilledAt > 0) {
+      refilledAt = pauseEnd;
+    }
+  }
+
+  @Override
+  public synchronized Instant pausedUntil() {
+    return pausedUntil;
+  }
+}
@@ -0,0 +1,61 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PlaylistCache {
+  private final Cache<String, PlaylistSnapshot> cache;
+  // Hits and misses are recorded by get, so an entry past its TTL counts as the miss it is for the caller.
+  private final StatsCounter statsCounter = new ConcurrentStatsCounter();
+
+  // Weight is the number of cached tracks, so the cap bounds memory regardless of how playlist sizes are mixed.
+  // Entries outlive spotify.cache.ttl on purpose: a stale entry is revalidated against its snapshot_id and reused when
+  // unchanged, so only entries idle for spotify.cache.max.idle are dropped.
+  public PlaylistCache(
+    @Value("${spotify.cache.max.idle:24h}") Duration maxIdle,
+    @Value("${spotify.cache.max.tracks:200000}") long maxTracks,
+    MeterRegistry meterRegistry
+  ) {
+    this.cache = Caffeine.newBuilder()
+      .expireAfterAccess(maxIdle)
+      .maximumWeight(Math.max(0, maxTracks))
+      .weigher((String playlistId, PlaylistSnapshot snapshot) -> snapshot.getTrackCount() + 1)
+      .recordStats(() -> statsCounter)
+      .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "playlists");
+  }
+
+  // Returns the entry even when it is older than ttl, since callers serve or revalidate it, but counts it as a miss.
+  public PlaylistSnapshot get(String playlistId, Duration ttl) {
+    PlaylistSnapshot snapshot = cache.asMap().get(playlistId);
+    if (snapshot != null && snapshot.isFresh(ttl, Instant.now())) {
+      statsCounter.recordHits(1);
+    } else {
+      statsCounter.recordMisses(1);
+    }
+    return snapshot;
+  }
+
+  // Lookup that does not count towards hit/miss statistics.
+  public PlaylistSnapshot peek(String playlistId) {
+    return cache.asMap().get(playlistId);
+  }
+
+  public void put(PlaylistSnapshot snapshot) {
+    cache.put(snapshot.getPlaylistId(), snapshot);
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+}
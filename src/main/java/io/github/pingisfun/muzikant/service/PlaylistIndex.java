@@ -0,0 +1,94 @@
+package io.github.pingisfun.muzikant.service;
+
+import io.github.pingisfun.muzikant.model.PlaylistPageResponse;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Year buckets over a playlist's year-sorted track list: each distinct year maps to the offset of its first track, so
+// a year range is one contiguous slice found by binary search. Tracks without a year sort last and are only part of
+// unfiltered queries.
+public class PlaylistIndex {
+  private final List<TrackDto> tracks;
+  private final int[] years;
+  private final int[] starts;
+  private final int datedCount;
+
+  public PlaylistIndex(List<TrackDto> sortedTracks) {
+    this.tracks = sortedTracks != null ? sortedTracks : List.of();
+    int[] bucketYears = new int[16];
+    int[] bucketStarts = new int[16];
+    int buckets = 0;
+    int dated = 0;
+    for (TrackDto track : tracks) {
+      Integer year = track.getYear();
+      if (year == null) {
+        break;
+      }
+      if (buckets == 0 || bucketYears[buckets - 1] != year) {
+        if (buckets == bucketYears.length) {
+          bucketYears = Arrays.copyOf(bucketYears, buckets * 2);
+          bucketStarts = Arrays.copyOf(bucketStarts, buckets * 2);
+        }
+        bucketYears[buckets] = year;
+        bucketStarts[buckets] = dated;
+        buckets++;
+      }
+      dated++;
+    }
+    this.years = Arrays.copyOf(bucketYears, buckets);
+    this.starts = Arrays.copyOf(bucketStarts, buckets);
+    this.datedCount = dated;
+  }
+
+  public PlaylistPageResponse query(String name, PlaylistQuery query) {
+    int from = 0;
+    int to = tracks.size();
+    if (query.getYearFrom() != null || query.getYearTo() != null) {
+      from = query.getYearFrom() != null ? firstIndexOfYearAtLeast(query.getYearFrom()) : 0;
+      to = query.getYearTo() != null && query.getYearTo() < Integer.MAX_VALUE
+        ? firstIndexOfYearAtLeast(query.getYearTo() + 1)
+        : datedCount;
+      to = Math.max(from, to);
+    }
+    List<TrackDto> matching = tracks.subList(from, to);
+    Long seed = null;
+    if (query.getRandom() != null) {
+      // Generated seeds stay within 2^53 so JavaScript clients can send them back unchanged.
+      seed = query.getSeed() != null ? query.getSeed() : new SplittableRandom().nextLong(1L << 53);
+      matching = sample(matching, query.getRandom(), seed);
+    }
+    int offset = Math.min(query.getOffset() != null ? query.getOffset() : 0, matching.size());
+    int end = query.getLimit() != null ? (int) Math.min((long) offset + query.getLimit(), matching.size()) : matching.size();
+    return new PlaylistPageResponse(name, List.copyOf(matching.subList(offset, end)), matching.size(), offset, seed);
+  }
+
+  private int firstIndexOfYearAtLeast(int year) {
+    int bucket = Arrays.binarySearch(years, year);
+    if (bucket < 0) {
+      bucket = -bucket - 1;
+    }
+    return bucket < years.length ? starts[bucket] : datedCount;
+  }
+
+  // A partial Fisher-Yates shuffle over virtual positions: O(count) time and memory however large the range is, and the
+  // same seed always yields the same tracks in the same order.
+  private static List<TrackDto> sample(List<TrackDto> range, int count, long seed) {
+    int size = range.size();
+    int picks = Math.min(count, size);
+    SplittableRandom random = new SplittableRandom(seed);
+    Map<Integer, Integer> swapped = new HashMap<>();
+    List<TrackDto> sample = new ArrayList<>(picks);
+    for (int i = 0; i < picks; i++) {
+      int j = i + random.nextInt(size - i);
+      int picked = swapped.getOrDefault(j, j);
+      swapped.put(j, swapped.getOrDefault(i, i));
+      sample.add(range.get(picked));
+    }
+    return sample;
+  }
+}
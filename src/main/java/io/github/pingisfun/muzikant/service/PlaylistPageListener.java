@@ -0,0 +1,17 @@
+package io.github.pingisfun.muzikant.service;
+
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.util.List;
+
+// Receives a playlist while it is being fetched: the name first, then each page's new tracks in playlist order. A load
+// that fails partway and falls back to the last fetched copy calls onReset before sending that copy from the start.
+public interface PlaylistPageListener {
+  PlaylistPageListener NONE = new PlaylistPageListener() {};
+
+  default void onName(String name) {}
+
+  default void onTracks(List<TrackDto> tracks) {}
+
+  // Everything received so far is to be discarded.
+  default void onReset() {}
+}
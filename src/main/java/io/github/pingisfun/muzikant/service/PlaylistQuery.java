@@ -0,0 +1,63 @@
+package io.github.pingisfun.muzikant.service;
+
+// Optional paging, year-range and sampling parameters for one playlist request. With random set, offset and limit page
+// through the sample, which stays the same for a given seed.
+public class PlaylistQuery {
+  private final Integer offset;
+  private final Integer limit;
+  private final Integer yearFrom;
+  private final Integer yearTo;
+  private final Integer random;
+  private final Long seed;
+
+  public PlaylistQuery(
+    Integer offset,
+    Integer limit,
+    Integer yearFrom,
+    Integer yearTo,
+    Integer random,
+    Long seed
+  ) {
+    this.offset = offset;
+    this.limit = limit;
+    this.yearFrom = yearFrom;
+    this.yearTo = yearTo;
+    this.random = random;
+    this.seed = seed;
+  }
+
+  public Integer getOffset() {
+    return offset;
+  }
+
+  public Integer getLimit() {
+    return limit;
+  }
+
+  public Integer getYearFrom() {
+    return yearFrom;
+  }
+
+  public Integer getYearTo() {
+    return yearTo;
+  }
+
+  public Integer getRandom() {
+    return random;
+  }
+
+  public Long getSeed() {
+    return seed;
+  }
+
+  public boolean isEmpty() {
+    return offset == null && limit == null && yearFrom == null && yearTo == null && random == null && seed == null;
+  }
+
+  public boolean isValid() {
+    return (offset == null || offset >= 0)
+      && (limit == null || limit >= 0)
+      && (random == null || random >= 0)
+      && (yearFrom == null || yearTo == null || yearFrom <= yearTo);
+  }
+}
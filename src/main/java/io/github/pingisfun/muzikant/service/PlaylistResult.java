@@ -0,0 +1,29 @@
+package io.github.pingisfun.muzikant.service;
+
+import java.time.Instant;
+
+// Something served from a playlist snapshot, with when Spotify last confirmed that snapshot. A stale result is past
+// the cache TTL: Spotify could not be asked in time, and a background refresh has been queued.
+public class PlaylistResult<T> {
+  private final T value;
+  private final Instant fetchedAt;
+  private final boolean stale;
+
+  public PlaylistResult(T value, Instant fetchedAt, boolean stale) {
+    this.value = value;
+    this.fetchedAt = fetchedAt;
+    this.stale = stale;
+  }
+
+  public T getValue() {
+    return value;
+  }
+
+  public Instant getFetchedAt() {
+    return fetchedAt;
+  }
+
+  public boolean isStale() {
+    return stale;
+  }
+}
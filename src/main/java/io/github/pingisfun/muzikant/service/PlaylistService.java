@@ -0,0 +1,496 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.pingisfun.muzikant.model.PlaylistBatchItem;
+import io.github.pingisfun.muzikant.model.PlaylistBatchResponse;
+import io.github.pingisfun.muzikant.model.PlaylistResponse;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+@Service
+public class PlaylistService {
+  private static final Logger log = LoggerFactory.getLogger(PlaylistService.class);
+  private static final int REPLAY_CHUNK_SIZE = 100;
+
+  private final SpotifyApiService apiService;
+  private final PlaylistCache cache;
+  private final PlaylistSnapshotStore snapshotStore;
+  private final SpotifyRequestScheduler scheduler;
+  private final Duration ttl;
+  private final Duration requestTimeout;
+  private final ObjectMapper objectMapper;
+  private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+  // Concurrent requests for the same playlist share one upstream fetch; its result or failure goes to every waiter.
+  private final ConcurrentMap<String, Load> inFlight = new ConcurrentHashMap<>();
+
+  public PlaylistService(
+    SpotifyApiService apiService,
+    PlaylistCache cache,
+    PlaylistSnapshotStore snapshotStore,
+    SpotifyRequestScheduler scheduler,
+    @Value("${spotify.cache.ttl:10m}") Duration ttl,
+    @Value("${spring.mvc.async.request-timeout:30s}") Duration requestTimeout,
+    ObjectMapper objectMapper
+  ) {
+    this.apiService = apiService;
+    this.cache = cache;
+    this.snapshotStore = snapshotStore;
+    this.scheduler = scheduler;
+    this.ttl = ttl;
+    this.requestTimeout = requestTimeout;
+    this.objectMapper = objectMapper;
+  }
+
+  // Upstream fetches run on virtual threads so callers can park on the returned future without holding a servlet thread.
+  public CompletableFuture<PlaylistResponse> getPlaylistAsync(String playlistId) {
+    return streamPlaylist(playlistId, PlaylistPageListener.NONE);
+  }
+
+  // The listener sees tracks as pages arrive when this call starts the fetch; otherwise the finished playlist is replayed.
+  public CompletableFuture<PlaylistResponse> streamPlaylist(String playlistId, PlaylistPageListener listener) {
+    return getSnapshotAsync(playlistId, listener, RequestTimeline.NONE).thenApply(PlaylistSnapshot::getPlaylist);
+  }
+
+  // The serialized body is kept with the snapshot, so repeat requests cost no Jackson work and no compression.
+  public CompletableFuture<PlaylistResult<EncodedPlaylist>> getEncodedPlaylistAsync(
+    String playlistId,
+    RequestTimeline timeline
+  ) {
+    return getSnapshotAsync(playlistId, PlaylistPageListener.NONE, timeline).thenApply(snapshot -> result(
+      snapshot,
+      snapshot.getEncoded(playlist -> {
+        long started = System.nanoTime();
+        EncodedPlaylist encoded = EncodedPlaylist.encode(objectMapper, playlist);
+        timeline.record(RequestTimeline.Stage.ENCODE, started);
+        return encoded;
+      })
+    ));
+  }
+
+  // Served from the snapshot's year index, so a page or sample costs O(page) rather than a pass over the playlist.
+  public CompletableFuture<PlaylistResult<PlaylistResponse>> queryPlaylistAsync(
+    String playlistId,
+    PlaylistQuery query,
+    RequestTimeline timeline
+  ) {
+    return getSnapshotAsync(playlistId, PlaylistPageListener.NONE, timeline).thenApply(snapshot -> {
+      long started = System.nanoTime();
+      PlaylistResponse page = snapshot.getIndex().query(snapshot.getPlaylist().getName(), query);
+      timeline.record(RequestTimeline.Stage.QUERY, started);
+      return result(snapshot, page);
+    });
+  }
+
+  // Loads every playlist concurrently, so all of their pages queue on the shared Spotify scheduler together and
+  // playlists already cached or loading are not fetched again. Snapshots are year-sorted, so merged tracks come from a
+  // k-way merge that keeps each track's first occurrence in request order and stops after mergeLimit tracks when one is
+  // given. A playlist that fails is reported in its entry without failing the batch.
+  public CompletableFuture<PlaylistBatchResponse> getPlaylistsAsync(
+    List<String> playlistIds,
+    boolean merge,
+    Integer mergeLimit
+  ) {
+    List<CompletableFuture<PlaylistSnapshot>> loads = playlistIds.stream()
+      .map(playlistId -> getSnapshotAsync(playlistId, PlaylistPageListener.NONE, RequestTimeline.NONE))
+      .toList();
+    CompletableFuture<?>[] settled = loads.stream()
+      .map(load -> load.handle((playlist, error) -> null))
+      .toArray(CompletableFuture[]::new);
+    return CompletableFuture.allOf(settled).thenApply(ignored -> {
+      List<PlaylistBatchItem> items = new ArrayList<>();
+      List<List<TrackDto>> sortedLists = new ArrayList<>();
+      for (int i = 0; i < playlistIds.size(); i++) {
+        String playlistId = playlistIds.get(i);
+        CompletableFuture<PlaylistSnapshot> load = loads.get(i);
+        if (load.isCompletedExceptionally()) {
+          Throwable cause = load.exceptionNow();
+          log.warn("Batch playlist load failed. playlistId={}", playlistId, cause);
+          String message = cause instanceof SpotifyRateLimitException ? cause.getMessage() : "Failed to load playlist.";
+          items.add(new PlaylistBatchItem(playlistId, null, null, null, message));
+          continue;
+        }
+        PlaylistSnapshot snapshot = load.resultNow();
+        PlaylistResponse playlist = snapshot.getPlaylist();
+        List<TrackDto> tracks = playlist.getTracks() != null ? playlist.getTracks() : List.of();
+        sortedLists.add(tracks);
+        PlaylistBatchItem item =
+          new PlaylistBatchItem(playlistId, playlist.getName(), tracks.size(), merge ? null : tracks, null);
+        if (!snapshot.isFresh(ttl, Instant.now())) {
+          item.setStale(true);
+        }
+        items.add(item);
+      }
+      List<TrackDto> merged = merge ? new SortedTrackMerge(sortedLists).take(mergeLimit) : null;
+      return new PlaylistBatchResponse(items, merged);
+    });
+  }
+
+  // Keeps a playlist warm with spare Spotify budget: loads it when it is not cached and revalidates it once it is
+  // within `ahead` of expiring, so clients keep hitting a fresh entry.
+  public CompletableFuture<PlaylistSnapshot> refreshAsync(String playlistId, Duration ahead) {
+    Duration maxAge = ttl.minus(ahead);
+    PlaylistSnapshot cached = cache.peek(playlistId);
+    if (cached != null && cached.isFresh(maxAge, Instant.now())) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    return loadShared(playlistId, PlaylistPageListener.NONE, SpotifyCallPriority.BACKGROUND, maxAge, RequestTimeline.NONE);
+  }
+
+  private CompletableFuture<PlaylistSnapshot> getSnapshotAsync(
+    String playlistId,
+    PlaylistPageListener listener,
+    RequestTimeline timeline
+  ) {
+    PlaylistSnapshot cached = cache.get(playlistId, ttl);
+    if (cached != null && cached.isFresh(ttl, Instant.now())) {
+      log.debug("Playlist cache hit. playlistId={}", playlistId);
+      timeline.setSource("hit");
+      replay(cached, listener);
+      return CompletableFuture.completedFuture(cached);
+    }
+    if (cached != null && scheduler.isFailingFast()) {
+      // Spotify asked us to back off for longer than a client should wait; the refresh queues behind the pause.
+      log.debug("Serving stale playlist during Spotify backoff. playlistId={}", playlistId);
+      timeline.setSource("stale");
+      replay(cached, listener);
+      refreshInBackground(playlistId);
+      return CompletableFuture.completedFuture(cached);
+    }
+    return loadShared(playlistId, listener, SpotifyCallPriority.INTERACTIVE, ttl, timeline);
+  }
+
+  // A load's Spotify calls run at the priority of the most urgent request still waiting on it, against the earliest of
+  // their deadlines. Once every client has timed out, its queued calls drop to background priority and the load still
+  // finishes into the cache for the retry.
+  private CompletableFuture<PlaylistSnapshot> loadShared(
+    String playlistId,
+    PlaylistPageListener listener,
+    SpotifyCallPriority priority,
+    Duration maxAge,
+    RequestTimeline timeline
+  ) {
+    Instant deadline = priority == SpotifyCallPriority.INTERACTIVE ? Instant.now().plus(requestTimeout) : null;
+    Load load = new Load(priority, deadline, timeline);
+    Load existing = inFlight.putIfAbsent(playlistId, load);
+    if (existing != null) {
+      log.debug("Joining in-flight playlist fetch. playlistId={}", playlistId);
+      if (existing.join(priority, deadline)) {
+        scheduler.reprioritized();
+      }
+      timeline.setSource("joined");
+      long joined = System.nanoTime();
+      return existing.future.thenApply(snapshot -> {
+        timeline.record(RequestTimeline.Stage.JOIN, joined);
+        replay(snapshot, listener);
+        return snapshot;
+      });
+    }
+    CompletableFuture<PlaylistSnapshot> fetch = load.future;
+    SentListener sent = new SentListener(listener);
+    fetchExecutor.execute(() -> {
+      PlaylistSnapshot loaded = null;
+      try {
+        loaded = load(playlistId, sent.listener(), load, maxAge);
+        fetch.complete(loaded);
+      } catch (RuntimeException e) {
+        loaded = lastKnownGood(playlistId, load, e);
+        if (loaded == null) {
+          fetch.completeExceptionally(e);
+        } else {
+          timeline.setSource("fallback");
+          // Pages of the failed load may have been streamed already; the fallback replaces them.
+          if (sent.sent) {
+            listener.onReset();
+          }
+          replay(loaded, listener);
+          fetch.complete(loaded);
+        }
+      } finally {
+        inFlight.remove(playlistId, load);
+      }
+      // A stored snapshot or a last-known-good fallback comes back stale; it has been served, and is now checked
+      // against Spotify.
+      if (loaded != null && !loaded.isFresh(ttl, Instant.now())) {
+        refreshInBackground(playlistId);
+      }
+    });
+    return fetch;
+  }
+
+  private PlaylistSnapshot load(
+    String playlistId,
+    PlaylistPageListener listener,
+    SpotifyCallContext context,
+    Duration maxAge
+  ) {
+    // Another fetch may have finished between the cache miss and registering this one.
+    RequestTimeline timeline = context.timeline();
+    PlaylistSnapshot cached = cache.peek(playlistId);
+    if (cached == null) {
+      long started = System.nanoTime();
+      cached = loadStored(playlistId);
+      timeline.record(RequestTimeline.Stage.STORE, started);
+      if (cached == null) {
+        return fromSpotify(playlistId, null, listener, context);
+      }
+      timeline.setSource("store");
+    } else if (!cached.isFresh(maxAge, Instant.now())) {
+      // With a shared store, another instance may have fetched or revalidated the playlist since.
+      long started = System.nanoTime();
+      PlaylistSnapshot newer = snapshotStore.loadNewer(cached);
+      timeline.record(RequestTimeline.Stage.STORE, started);
+      if (newer == null || !newer.isFresh(maxAge, Instant.now())) {
+        return fromSpotify(playlistId, newer != null ? newer : cached, listener, context);
+      }
+      log.debug("Playlist refreshed from shared store. playlistId={}", playlistId);
+      timeline.setSource("shared");
+      cache.put(newer);
+      cached = newer;
+    } else {
+      timeline.setSource("hit");
+    }
+    replay(cached, listener);
+    return cached;
+  }
+
+  // With a shared store, one instance at a time asks Spotify for a given playlist and the others take its result.
+  private PlaylistSnapshot fromSpotify(
+    String playlistId,
+    PlaylistSnapshot cached,
+    PlaylistPageListener listener,
+    SpotifyCallContext context
+  ) {
+    AtomicBoolean asked = new AtomicBoolean();
+    long started = System.nanoTime();
+    PlaylistSnapshot snapshot = snapshotStore.loadOnce(playlistId, cached, () -> {
+      asked.set(true);
+      return cached == null ? fetch(playlistId, listener, context) : revalidate(cached, listener, context);
+    });
+    if (!asked.get()) {
+      log.debug("Playlist loaded by another instance. playlistId={}", playlistId);
+      context.timeline().record(RequestTimeline.Stage.STORE, started);
+      context.timeline().setSource("shared");
+      cache.put(snapshot);
+      replay(snapshot, listener);
+    }
+    return snapshot;
+  }
+
+  // Clients waiting on a load that Spotify throttled or failed get the playlist as it was last fetched. Background
+  // loads fail as they are, so a failed refresh does not queue another one.
+  private PlaylistSnapshot lastKnownGood(String playlistId, Load load, RuntimeException error) {
+    boolean unavailable = error instanceof SpotifyRateLimitException
+      || error instanceof HttpServerErrorException
+      || error instanceof ResourceAccessException;
+    if (!unavailable || !load.hasClients()) {
+      return null;
+    }
+    PlaylistSnapshot previous = cache.peek(playlistId);
+    if (previous != null) {
+      log.warn(
+        "Spotify unavailable, serving last known playlist. playlistId={}, fetchedAt={}, error={}",
+        playlistId,
+        previous.getFetchedAt(),
+        error.toString()
+      );
+    }
+    return previous;
+  }
+
+  private PlaylistSnapshot loadStored(String playlistId) {
+    PlaylistSnapshot stored = snapshotStore.load(playlistId);
+    if (stored == null) {
+      return null;
+    }
+    cache.put(stored);
+    log.info("Playlist served from stored snapshot. playlistId={}, fetchedAt={}", playlistId, stored.getFetchedAt());
+    return stored;
+  }
+
+  private PlaylistSnapshot fetch(
+    String playlistId,
+    PlaylistPageListener listener,
+    SpotifyCallContext context
+  ) {
+    PlaylistSnapshot snapshot = apiService.fetchPlaylist(playlistId, listener, context);
+    context.timeline().setSource("fetched");
+    cache.put(snapshot);
+    fetchExecutor.execute(() -> snapshotStore.save(snapshot));
+    CacheStats stats = cache.stats();
+    log.info(
+      "Playlist cache miss. playlistId={}, hits={}, misses={}, evictions={}",
+      playlistId,
+      stats.hitCount(),
+      stats.missCount(),
+      stats.evictionCount()
+    );
+    return snapshot;
+  }
+
+  // A stale entry costs one metadata call when its snapshot_id is unchanged; only a changed playlist is walked again.
+  private PlaylistSnapshot revalidate(
+    PlaylistSnapshot stale,
+    PlaylistPageListener listener,
+    SpotifyCallContext context
+  ) {
+    PlaylistSnapshot current = apiService.revalidate(stale, listener, context);
+    context.timeline().setSource(current.getPlaylist() == stale.getPlaylist() ? "revalidated" : "fetched");
+    cache.put(current);
+    if (current.getPlaylist() == stale.getPlaylist()) {
+      // Unchanged content was not streamed by the API service, so the listener still needs it.
+      log.debug("Playlist unchanged on Spotify. playlistId={}", stale.getPlaylistId());
+      replay(current, listener);
+      fetchExecutor.execute(() -> snapshotStore.revalidated(current));
+    } else {
+      fetchExecutor.execute(() -> snapshotStore.save(current));
+    }
+    return current;
+  }
+
+  private void refreshInBackground(String playlistId) {
+    loadShared(playlistId, PlaylistPageListener.NONE, SpotifyCallPriority.BACKGROUND, ttl, RequestTimeline.NONE)
+      .exceptionally(e -> {
+        log.warn("Background playlist refresh failed. playlistId={}", playlistId, e);
+        return null;
+      });
+  }
+
+  private <T> PlaylistResult<T> result(PlaylistSnapshot snapshot, T value) {
+    return new PlaylistResult<>(value, snapshot.getFetchedAt(), !snapshot.isFresh(ttl, Instant.now()));
+  }
+
+  private void replay(PlaylistSnapshot snapshot, PlaylistPageListener listener) {
+    if (listener == PlaylistPageListener.NONE) {
+      return;
+    }
+    PlaylistResponse playlist = snapshot.getPlaylist();
+    listener.onName(playlist.getName());
+    List<TrackDto> tracks = playlist.getTracks() != null ? playlist.getTracks() : List.of();
+    for (int from = 0; from < tracks.size(); from += REPLAY_CHUNK_SIZE) {
+      listener.onTracks(tracks.subList(from, Math.min(tracks.size(), from + REPLAY_CHUNK_SIZE)));
+    }
+  }
+
+  // Records whether a listener has been sent anything.
+  private static final class SentListener implements PlaylistPageListener {
+    private final PlaylistPageListener target;
+    private volatile boolean sent;
+
+    private SentListener(PlaylistPageListener target) {
+      this.target = target;
+    }
+
+    // NONE stays NONE, so nothing is replayed to it.
+    private PlaylistPageListener listener() {
+      return target == PlaylistPageListener.NONE ? PlaylistPageListener.NONE : this;
+    }
+
+    @Override
+    public void onName(String name) {
+      sent = true;
+      target.onName(name);
+    }
+
+    @Override
+    public void onTracks(List<TrackDto> tracks) {
+      sent = true;
+      target.onTracks(tracks);
+    }
+  }
+
+  private static final class Load implements SpotifyCallContext {
+    private final CompletableFuture<PlaylistSnapshot> future = new CompletableFuture<>();
+    private final RequestTimeline timeline;
+    // The request or refresh that started the load, then everything that joined it.
+    private final List<Joiner> joiners = new ArrayList<>();
+
+    private Load(SpotifyCallPriority priority, Instant deadline, RequestTimeline timeline) {
+      this.timeline = timeline;
+      joiners.add(new Joiner(priority, deadline));
+    }
+
+    @Override
+    public RequestTimeline timeline() {
+      return timeline;
+    }
+
+    // The most urgent priority among joiners still waiting, or BACKGROUND once every client has timed out.
+    @Override
+    public synchronized SpotifyCallPriority priority() {
+      Instant now = Instant.now();
+      SpotifyCallPriority priority = SpotifyCallPriority.BACKGROUND;
+      for (Joiner joiner : joiners) {
+        if (joiner.isWaiting(now) && joiner.priority.compareTo(priority) < 0) {
+          priority = joiner.priority;
+        }
+      }
+      return priority;
+    }
+
+    // The earliest deadline still ahead. Once all have passed, null while a background refresh waits on the load, and
+    // otherwise the last one to pass, so the scheduler sees the calls expire.
+    @Override
+    public synchronized Instant deadline() {
+      Instant now = Instant.now();
+      Instant earliest = null;
+      Instant lastPassed = null;
+      boolean refreshing = false;
+      for (Joiner joiner : joiners) {
+        if (joiner.deadline == null) {
+          refreshing = true;
+        } else if (joiner.deadline.isAfter(now)) {
+          earliest = earliest == null || joiner.deadline.isBefore(earliest) ? joiner.deadline : earliest;
+        } else {
+          lastPassed = lastPassed == null || joiner.deadline.isAfter(lastPassed) ? joiner.deadline : lastPassed;
+        }
+      }
+      return earliest != null || refreshing ? earliest : lastPassed;
+    }
+
+    // Whether any client, rather than only background refreshes, has waited on the load.
+    private synchronized boolean hasClients() {
+      return joiners.stream().anyMatch(joiner -> joiner.priority != SpotifyCallPriority.BACKGROUND);
+    }
+
+    // Returns whether the load's priority or deadline changed.
+    private synchronized boolean join(SpotifyCallPriority priority, Instant deadline) {
+      SpotifyCallPriority priorityBefore = priority();
+      Instant deadlineBefore = deadline();
+      joiners.add(new Joiner(priority, deadline));
+      return priority() != priorityBefore || !Objects.equals(deadline(), deadlineBefore);
+    }
+  }
+
+  private static final class Joiner {
+    private final SpotifyCallPriority priority;
+    // Null for background refreshes, which wait as long as the load takes.
+    private final Instant deadline;
+
+    private Joiner(SpotifyCallPriority priority, Instant deadline) {
+      this.priority = priority;
+      this.deadline = deadline;
+    }
+
+    private boolean isWaiting(Instant now) {
+      return deadline == null || deadline.isAfter(now);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package io.github.pingisfun.muzikant.service;
+
+import io.github.pingisfun.muzikant.model.PlaylistResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+// A fetched playlist together with the Spotify snapshot_id and ETag it was built from. fetchedAt is when Spotify last
+// confirmed the content, either by a full fetch or by a revalidation that found it unchanged.
+public class PlaylistSnapshot {
+  private final String playlistId;
+  private final String snapshotId;
+  private final String etag;
+  private final Instant fetchedAt;
+  private final PlaylistResponse playlist;
+  private volatile PlaylistIndex index;
+  private volatile EncodedPlaylist encoded;
+
+  public PlaylistSnapshot(
+    String playlistId,
+    String snapshotId,
+    String etag,
+    Instant fetchedAt,
+    PlaylistResponse playlist
+  ) {
+    this.playlistId = playlistId;
+    this.snapshotId = snapshotId;
+    this.etag = etag;
+    this.fetchedAt = fetchedAt;
+    this.playlist = playlist;
+  }
+
+  public String getPlaylistId() {
+    return playlistId;
+  }
+
+  public String getSnapshotId() {
+    return snapshotId;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public Instant getFetchedAt() {
+    return fetchedAt;
+  }
+
+  public PlaylistResponse getPlaylist() {
+    return playlist;
+  }
+
+  // The index and encoded body are built on first use and shared with revalidated copies, which keep the same tracks.
+  public PlaylistIndex getIndex() {
+    PlaylistIndex current = index;
+    if (current == null) {
+      current = new PlaylistIndex(playlist.getTracks());
+      index = current;
+    }
+    return current;
+  }
+
+  public EncodedPlaylist getEncoded(Function<PlaylistResponse, EncodedPlaylist> encoder) {
+    EncodedPlaylist current = encoded;
+    if (current == null) {
+      current = encoder.apply(playlist);
+      encoded = current;
+    }
+    return current;
+  }
+
+  public int getTrackCount() {
+    return playlist.getTracks() != null ? playlist.getTracks().size() : 0;
+  }
+
+  public boolean isFresh(Duration ttl, Instant now) {
+    return fetchedAt.plus(ttl).isAfter(now);
+  }
+
+  // Same content, confirmed current at checkedAt.
+  public PlaylistSnapshot revalidated(Instant checkedAt, String etag) {
+    PlaylistSnapshot snapshot = new PlaylistSnapshot(playlistId, snapshotId, etag, checkedAt, playlist);
+    snapshot.index = index;
+    snapshot.encoded = encoded;
+    return snapshot;
+  }
+}
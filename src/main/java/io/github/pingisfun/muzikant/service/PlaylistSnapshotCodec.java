@@ -0,0 +1,62 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pingisfun.muzikant.model.PlaylistResponse;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// The gzip-compressed JSON form every PlaylistSnapshotStore keeps a snapshot in.
+public final class PlaylistSnapshotCodec {
+  private static final int FORMAT_VERSION = 1;
+
+  private PlaylistSnapshotCodec() {
+  }
+
+  public static void write(ObjectMapper objectMapper, PlaylistSnapshot snapshot, OutputStream out) throws IOException {
+    StoredSnapshot stored = new StoredSnapshot();
+    stored.version = FORMAT_VERSION;
+    stored.playlistId = snapshot.getPlaylistId();
+    stored.snapshotId = snapshot.getSnapshotId();
+    stored.etag = snapshot.getEtag();
+    stored.fetchedAt = snapshot.getFetchedAt().toEpochMilli();
+    stored.name = snapshot.getPlaylist().getName();
+    stored.tracks = snapshot.getPlaylist().getTracks();
+    try (OutputStream gzip = new GZIPOutputStream(out)) {
+      objectMapper.writeValue(gzip, stored);
+    }
+  }
+
+  public static PlaylistSnapshot read(ObjectMapper objectMapper, String playlistId, InputStream in) throws IOException {
+    StoredSnapshot stored;
+    try (InputStream gzip = new GZIPInputStream(in)) {
+      stored = objectMapper.readValue(gzip, StoredSnapshot.class);
+    }
+    if (stored.version != FORMAT_VERSION || !playlistId.equals(stored.playlistId)) {
+      throw new IOException("Unexpected snapshot header.");
+    }
+    return new PlaylistSnapshot(
+      stored.playlistId,
+      stored.snapshotId,
+      stored.etag,
+      Instant.ofEpochMilli(stored.fetchedAt),
+      new PlaylistResponse(stored.name, stored.tracks != null ? stored.tracks : new ArrayList<>())
+    );
+  }
+
+  private static class StoredSnapshot {
+    public int version;
+    public String playlistId;
+    public String snapshotId;
+    public String etag;
+    public long fetchedAt;
+    public String name;
+    public List<TrackDto> tracks;
+  }
+}
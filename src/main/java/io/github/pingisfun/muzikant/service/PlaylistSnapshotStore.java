@@ -0,0 +1,28 @@
+package io.github.pingisfun.muzikant.service;
+
+import java.util.function.Supplier;
+
+// Second tier behind PlaylistCache, consulted when a playlist is not in memory. spotify.shared.store picks the
+// implementation: "local" keeps snapshots on this instance's disk, "redis" shares them between instances so a playlist
+// fetched by one is served by all of them.
+public interface PlaylistSnapshotStore {
+  PlaylistSnapshot load(String playlistId);
+
+  void save(PlaylistSnapshot snapshot);
+
+  // Records that Spotify confirmed a stored snapshot unchanged at snapshot.getFetchedAt().
+  default void revalidated(PlaylistSnapshot snapshot) {
+  }
+
+  // A copy fetched or revalidated by another instance since `cached` was, or null. An unchanged playlist comes back as
+  // cached.revalidated(...), so its tracks are not transferred again.
+  default PlaylistSnapshot loadNewer(PlaylistSnapshot cached) {
+    return null;
+  }
+
+  // Runs load, which asks Spotify for the playlist, unless another instance is already asking; then waits for that
+  // instance to store its result and returns it instead. cached is this instance's copy, or null.
+  default PlaylistSnapshot loadOnce(String playlistId, PlaylistSnapshot cached, Supplier<PlaylistSnapshot> load) {
+    return load.get();
+  }
+}
@@ -0,0 +1,215 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+// Keeps snapshots in Redis so every instance serves what any of them fetched. Each playlist has two keys: the
+// snapshot in the same gzip-compressed JSON as on disk, and a small "checked" record of the snapshot_id, ETag and the
+// time Spotify last confirmed it. A revalidation that finds the playlist unchanged only rewrites the checked record,
+// and other instances pick it up without loading the tracks again. Both keys expire after spotify.cache.max.idle
+// without use. While one instance asks Spotify for a playlist it holds a lease key, and the others poll for its result
+// instead of asking too; the lease lapses after the request timeout if that instance never stores one. Redis failures
+// are logged and treated as a miss.
+@ConditionalOnProperty(
+  name = "spotify.shared.store",
+  havingValue = "redis"
+)
+@Component
+public class RedisPlaylistSnapshotStore implements PlaylistSnapshotStore {
+  private static final Logger log = LoggerFactory.getLogger(RedisPlaylistSnapshotStore.class);
+  private static final String SNAPSHOT_PREFIX = "muzikant:playlist:";
+  private static final String CHECKED_PREFIX = "muzikant:checked:";
+  private static final String LEASE_PREFIX = "muzikant:loading:";
+  private static final long LEASE_POLL_MILLIS = 100;
+
+  private final StringRedisTemplate redis;
+  private final ObjectMapper objectMapper;
+  private final long maxIdleMillis;
+  private final long leaseMillis;
+
+  public RedisPlaylistSnapshotStore(
+    StringRedisTemplate redis,
+    ObjectMapper objectMapper,
+    @Value("${spotify.cache.max.idle:24h}") Duration maxIdle,
+    @Value("${spring.mvc.async.request-timeout:30s}") Duration requestTimeout
+  ) {
+    this.redis = redis;
+    this.objectMapper = objectMapper;
+    this.maxIdleMillis = Math.max(1, maxIdle.toMillis());
+    this.leaseMillis = Math.max(1, requestTimeout.toMillis());
+  }
+
+  @Override
+  public PlaylistSnapshot load(String playlistId) {
+    try {
+      // Snapshots are gzip bytes, so replies are read as raw bytes rather than as strings.
+      List<Object> replies = redis.executePipelined((RedisCallback<Object>) connection -> {
+        connection.stringCommands().get(bytes(SNAPSHOT_PREFIX + playlistId));
+        connection.stringCommands().get(bytes(CHECKED_PREFIX + playlistId));
+        connection.keyCommands().pExpire(bytes(SNAPSHOT_PREFIX + playlistId), maxIdleMillis);
+        connection.keyCommands().pExpire(bytes(CHECKED_PREFIX + playlistId), maxIdleMillis);
+        return null;
+      }, RedisSerializer.byteArray());
+      if (replies.get(0) == null) {
+        return null;
+      }
+      PlaylistSnapshot snapshot =
+        PlaylistSnapshotCodec.read(objectMapper, playlistId, new ByteArrayInputStream((byte[]) replies.get(0)));
+      Checked checked = Checked.parse((byte[]) replies.get(1));
+      return checked != null && checked.confirms(snapshot) ? checked.apply(snapshot) : snapshot;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to load shared playlist snapshot. playlistId={}, error={}", playlistId, e.toString());
+      return null;
+    }
+  }
+
+  @Override
+  public PlaylistSnapshot loadNewer(PlaylistSnapshot cached) {
+    String playlistId = cached.getPlaylistId();
+    try {
+      Checked checked = Checked.parse(redis.execute(
+        (RedisCallback<byte[]>) connection -> connection.stringCommands().get(bytes(CHECKED_PREFIX + playlistId))
+      ));
+      if (checked == null || !checked.fetchedAt.isAfter(cached.getFetchedAt())) {
+        return null;
+      }
+      if (checked.confirms(cached)) {
+        return checked.apply(cached);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to check shared playlist snapshot. playlistId={}, error={}", playlistId, e.toString());
+      return null;
+    }
+    // The playlist changed on Spotify and another instance stored the new tracks.
+    PlaylistSnapshot stored = load(playlistId);
+    return stored != null && stored.getFetchedAt().isAfter(cached.getFetchedAt()) ? stored : null;
+  }
+
+  @Override
+  public PlaylistSnapshot loadOnce(String playlistId, PlaylistSnapshot cached, Supplier<PlaylistSnapshot> load) {
+    String lease = LEASE_PREFIX + playlistId;
+    long giveUpAt = System.currentTimeMillis() + leaseMillis;
+    try {
+      while (!Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(lease, "1", Duration.ofMillis(leaseMillis)))
+        && System.currentTimeMillis() < giveUpAt) {
+        Thread.sleep(LEASE_POLL_MILLIS);
+        PlaylistSnapshot stored = cached != null ? loadNewer(cached) : load(playlistId);
+        if (stored != null) {
+          return stored;
+        }
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to take shared playlist lease. playlistId={}, error={}", playlistId, e.toString());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw SpotifyRateLimitException.unavailable();
+    }
+    try {
+      return load.get();
+    } catch (RuntimeException e) {
+      // Nothing will be stored, so waiting instances can stop waiting and ask Spotify themselves.
+      try {
+        redis.delete(lease);
+      } catch (RuntimeException releaseError) {
+        log.warn("Failed to release shared playlist lease. playlistId={}, error={}", playlistId, releaseError.toString());
+      }
+      throw e;
+    }
+  }
+
+  // Storing a result also releases the lease taken to fetch it.
+  @Override
+  public void save(PlaylistSnapshot snapshot) {
+    String playlistId = snapshot.getPlaylistId();
+    try {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      PlaylistSnapshotCodec.write(objectMapper, snapshot, body);
+      redis.executePipelined((RedisCallback<Object>) connection -> {
+        connection.stringCommands().pSetEx(bytes(SNAPSHOT_PREFIX + playlistId), maxIdleMillis, body.toByteArray());
+        connection.stringCommands().pSetEx(bytes(CHECKED_PREFIX + playlistId), maxIdleMillis, Checked.format(snapshot));
+        connection.keyCommands().del(bytes(LEASE_PREFIX + playlistId));
+        return null;
+      });
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to write shared playlist snapshot. playlistId={}, error={}", playlistId, e.toString());
+    }
+  }
+
+  @Override
+  public void revalidated(PlaylistSnapshot snapshot) {
+    String playlistId = snapshot.getPlaylistId();
+    try {
+      redis.executePipelined((RedisCallback<Object>) connection -> {
+        connection.stringCommands().pSetEx(bytes(CHECKED_PREFIX + playlistId), maxIdleMillis, Checked.format(snapshot));
+        connection.keyCommands().del(bytes(LEASE_PREFIX + playlistId));
+        return null;
+      });
+    } catch (RuntimeException e) {
+      log.warn("Failed to record shared playlist revalidation. playlistId={}, error={}", playlistId, e.toString());
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  // "<fetchedAt millis>\n<snapshot_id>\n<ETag>", with an empty line for a missing value.
+  private static final class Checked {
+    private final Instant fetchedAt;
+    private final String snapshotId;
+    private final String etag;
+
+    private Checked(Instant fetchedAt, String snapshotId, String etag) {
+      this.fetchedAt = fetchedAt;
+      this.snapshotId = snapshotId;
+      this.etag = etag;
+    }
+
+    private static byte[] format(PlaylistSnapshot snapshot) {
+      return bytes(snapshot.getFetchedAt().toEpochMilli()
+        + "\n" + (snapshot.getSnapshotId() != null ? snapshot.getSnapshotId() : "")
+        + "\n" + (snapshot.getEtag() != null ? snapshot.getEtag() : ""));
+    }
+
+    private static Checked parse(byte[] reply) {
+      if (reply == null) {
+        return null;
+      }
+      String[] parts = new String(reply, StandardCharsets.UTF_8).split("\n", -1);
+      if (parts.length != 3) {
+        return null;
+      }
+      return new Checked(
+        Instant.ofEpochMilli(Long.parseLong(parts[0])),
+        parts[1].isEmpty() ? null : parts[1],
+        parts[2].isEmpty() ? null : parts[2]
+      );
+    }
+
+    // Whether this record vouches for the snapshot's tracks at a later time than the snapshot itself records.
+    private boolean confirms(PlaylistSnapshot snapshot) {
+      return snapshotId != null
+        && snapshotId.equals(snapshot.getSnapshotId())
+        && fetchedAt.isAfter(snapshot.getFetchedAt());
+    }
+
+    private PlaylistSnapshot apply(PlaylistSnapshot snapshot) {
+      return snapshot.revalidated(fetchedAt, etag);
+    }
+  }
+}
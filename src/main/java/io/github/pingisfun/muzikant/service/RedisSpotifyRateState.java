@@ -0,0 +1,176 @@
+package io.github.pingisfun.muzikant.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+// The rate budget shared by every instance through Redis. Calls are counted per spotify.rate.window in one key per
+// window, and the budget used is estimated over a sliding window: the previous window's count weighted by how much of
+// it still overlaps, plus the current count. The latest pause is one key every instance polls. While Redis cannot be
+// reached, calls are budgeted by a local token bucket as if this instance were alone, and Redis is tried again once a
+// second so a dead connection does not slow every admission.
+@ConditionalOnProperty(
+  name = "spotify.shared.store",
+  havingValue = "redis"
+)
+@Component
+public class RedisSpotifyRateState implements SpotifyRateState {
+  private static final Logger log = LoggerFactory.getLogger(RedisSpotifyRateState.class);
+  private static final String KEY_PREFIX = "muzikant:rate:";
+  private static final String PAUSE_KEY = KEY_PREFIX + "pause";
+  private static final long PAUSE_POLL_MILLIS = 250;
+  private static final long RECONNECT_AFTER_MILLIS = 1000;
+  // Sets the pause (KEYS[1]) to ARGV[1] for ARGV[2] milliseconds unless a later one is already set. Returns 1 if it did.
+  private static final RedisScript<Long> EXTEND_PAUSE = RedisScript.of("""
+    local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+    if current >= tonumber(ARGV[1]) then
+      return 0
+    end
+    redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+    return 1
+    """, Long.class);
+
+  private final StringRedisTemplate redis;
+  private final LocalSpotifyRateState fallback;
+  private final int capacity;
+  private final long windowMillis;
+  private volatile long pausedUntilMillis;
+  private volatile long pauseReadAt;
+  private volatile boolean unreachable;
+  private volatile long retryAt;
+
+  public RedisSpotifyRateState(
+    StringRedisTemplate redis,
+    @Value("${spotify.rate.requests:100}") int requestsPerWindow,
+    @Value("${spotify.rate.window:30s}") Duration window
+  ) {
+    this.redis = redis;
+    this.fallback = new LocalSpotifyRateState(requestsPerWindow, window);
+    this.capacity = Math.max(1, requestsPerWindow);
+    this.windowMillis = Math.max(1, window.toMillis());
+  }
+
+  @Override
+  public long tryTake(double keepFree) {
+    long now = System.currentTimeMillis();
+    long windowIndex = now / windowMillis;
+    long intoWindow = now % windowMillis;
+    String key = KEY_PREFIX + windowIndex;
+    if (!worthTrying(now)) {
+      return fallback.tryTake(keepFree);
+    }
+    try {
+      // Counting first and giving the call back when refused keeps this to one round trip per admitted call.
+      List<Object> replies = redis.executePipelined((RedisCallback<Object>) connection -> {
+        connection.stringCommands().get(bytes(PAUSE_KEY));
+        connection.stringCommands().get(bytes(KEY_PREFIX + (windowIndex - 1)));
+        connection.stringCommands().incr(bytes(key));
+        connection.keyCommands().pExpire(bytes(key), windowMillis * 2);
+        return null;
+      });
+      reachable();
+      notePause(replies.get(0), now);
+      long previous = asLong(replies.get(1));
+      double used = previous * (1 - (double) intoWindow / windowMillis) + asLong(replies.get(2));
+      double allowed = capacity - Math.min(capacity - 1, Math.max(0, keepFree) * capacity);
+      if (pausedUntilMillis <= now && used <= allowed) {
+        return 0;
+      }
+      redis.opsForValue().decrement(key);
+      long waitMillis = pausedUntilMillis > now
+        ? pausedUntilMillis - now
+        : previous > 0
+          ? Math.min(windowMillis - intoWindow, (long) Math.ceil((used - allowed) / previous * windowMillis))
+          : windowMillis - intoWindow;
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(1, waitMillis));
+    } catch (RuntimeException e) {
+      unreachable(e);
+      return fallback.tryTake(keepFree);
+    }
+  }
+
+  @Override
+  public void pause(Instant until) {
+    long untilMillis = until.toEpochMilli();
+    if (untilMillis > pausedUntilMillis) {
+      pausedUntilMillis = untilMillis;
+    }
+    fallback.pause(until);
+    long remaining = untilMillis - System.currentTimeMillis();
+    if (remaining <= 0 || !worthTrying(System.currentTimeMillis())) {
+      return;
+    }
+    try {
+      // Compared and set in one script, so of two instances throttled together the later pause is the one kept.
+      redis.execute(EXTEND_PAUSE, List.of(PAUSE_KEY), String.valueOf(untilMillis), String.valueOf(remaining));
+      reachable();
+    } catch (RuntimeException e) {
+      unreachable(e);
+    }
+  }
+
+  @Override
+  public Instant pausedUntil() {
+    long now = System.currentTimeMillis();
+    if (now - pauseReadAt > PAUSE_POLL_MILLIS && worthTrying(now)) {
+      pauseReadAt = now;
+      try {
+        notePause(redis.opsForValue().get(PAUSE_KEY), now);
+        reachable();
+      } catch (RuntimeException e) {
+        unreachable(e);
+      }
+    }
+    long until = pausedUntilMillis;
+    return until > 0 ? Instant.ofEpochMilli(until) : null;
+  }
+
+  private void notePause(Object reply, long now) {
+    long until = asLong(reply);
+    if (until > pausedUntilMillis) {
+      pausedUntilMillis = until;
+    }
+    pauseReadAt = now;
+  }
+
+  private boolean worthTrying(long now) {
+    return !unreachable || now >= retryAt;
+  }
+
+  private void reachable() {
+    if (unreachable) {
+      unreachable = false;
+      log.info("Redis reachable again, sharing the Spotify rate budget.");
+    }
+  }
+
+  private void unreachable(Exception e) {
+    retryAt = System.currentTimeMillis() + RECONNECT_AFTER_MILLIS;
+    if (!unreachable) {
+      unreachable = true;
+      log.warn("Redis unreachable, budgeting Spotify calls for this instance alone.", e);
+    }
+  }
+
+  // Integer value of a GET or INCR reply; a missing key reads as 0.
+  private static long asLong(Object reply) {
+    if (reply == null) {
+      return 0;
+    }
+    return reply instanceof Long value ? value : Long.parseLong(reply.toString());
+  }
+
+  private static byte[] bytes(String key) {
+    return key.getBytes(StandardCharsets.UTF_8);
+  }
+}
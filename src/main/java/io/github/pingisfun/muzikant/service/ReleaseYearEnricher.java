@@ -0,0 +1,113 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Year;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Moves release years that a playlist page dates by a later album back to when the recording was first released, when
+// spotify.enrich.years is on. Albums that are compilations, are titled as a remaster, reissue, anniversary or deluxe
+// edition, or are only dated to a year are looked up through /v1/albums, and the year in their ℗ (recording copyright)
+// line is kept when it is earlier than the page's. That line dates the first publication of the recordings, where the
+// release date is the reissue's. A compilation whose ℗ lines name several years is left alone, since its tracks come
+// from different ones.
+//
+// Results are kept per album id for as long as they fit in spotify.enrich.cache.max.entries, since neither changes on
+// Spotify, so an album costs a lookup only the first time any playlist contains it.
+@Component
+public class ReleaseYearEnricher {
+  public static final int ALBUM_BATCH_SIZE = 20;
+  private static final Pattern REISSUE = Pattern.compile("remaster|reissue|anniversary|deluxe", Pattern.CASE_INSENSITIVE);
+  private static final Pattern YEAR = Pattern.compile("\\b(1[89]\\d\\d|20\\d\\d)\\b");
+  // Cached for ids Spotify had no usable year for, so they are not looked up again.
+  private static final int UNKNOWN = 0;
+
+  private final boolean enabled;
+  private final Cache<String, Integer> years;
+  private final Counter corrected;
+
+  public ReleaseYearEnricher(
+    @Value("${spotify.enrich.years:false}") boolean enabled,
+    @Value("${spotify.enrich.cache.max.entries:500000}") long maxEntries,
+    MeterRegistry meterRegistry
+  ) {
+    this.enabled = enabled;
+    this.years = Caffeine.newBuilder()
+      .maximumSize(Math.max(0, maxEntries))
+      .recordStats()
+      .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, years, "release-years");
+    this.corrected = Counter.builder("playlist.enrich.corrected")
+      .description("Track release years replaced by a looked-up year")
+      .register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // The ids of albums to look up that the cache cannot answer for yet, each listed once.
+  public List<String> plan(List<TrackDto> tracks) {
+    Set<String> albumIds = new LinkedHashSet<>();
+    for (TrackDto track : tracks) {
+      if (needsLookup(track) && years.getIfPresent(track.getAlbumId()) == null) {
+        albumIds.add(track.getAlbumId());
+      }
+    }
+    return List.copyOf(albumIds);
+  }
+
+  // recordingCopyrights are the texts of the album's copyrights of type P.
+  public void putAlbum(String albumId, String albumType, List<String> recordingCopyrights) {
+    Set<Integer> found = new TreeSet<>();
+    int currentYear = Year.now().getValue();
+    for (String text : recordingCopyrights) {
+      Matcher matcher = YEAR.matcher(text);
+      while (matcher.find()) {
+        int year = Integer.parseInt(matcher.group(1));
+        if (year <= currentYear) {
+          found.add(year);
+        }
+      }
+    }
+    boolean mixed = "compilation".equals(albumType) && found.size() > 1;
+    years.put(albumId, found.isEmpty() || mixed ? UNKNOWN : found.iterator().next());
+  }
+
+  // Moves tracks to a cached year earlier than their own and returns how many moved.
+  public int apply(List<TrackDto> tracks) {
+    int changed = 0;
+    for (TrackDto track : tracks) {
+      Integer year = needsLookup(track) ? years.getIfPresent(track.getAlbumId()) : null;
+      if (year != null && year != UNKNOWN && year < track.getYear()) {
+        track.setYear(year);
+        changed++;
+      }
+    }
+    corrected.increment(changed);
+    return changed;
+  }
+
+  // Tracks the page has no year for are left alone: the lookup only moves a known year earlier.
+  private static boolean needsLookup(TrackDto track) {
+    return track.getYear() != null && track.getAlbumId() != null && hasDoubtfulYear(track);
+  }
+
+  private static boolean hasDoubtfulYear(TrackDto track) {
+    return "compilation".equals(track.getAlbumType())
+      || "year".equals(track.getReleaseDatePrecision())
+      || track.getTitle() != null && REISSUE.matcher(track.getTitle()).find()
+      || track.getAlbum() != null && REISSUE.matcher(track.getAlbum()).find();
+  }
+}
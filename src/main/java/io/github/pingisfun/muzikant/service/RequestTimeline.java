@@ -0,0 +1,124 @@
+package io.github.pingisfun.muzikant.service;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Where one client request's time went, per stage. A stage recorded several times (one per Spotify call, say) adds up
+// its durations and counts the calls; calls run concurrently, so per-call stages can add up to more than the total.
+// Recording is two nanoTime reads and two atomic adds, so it stays on for every request. NONE records nothing and is
+// what background loads carry.
+public class RequestTimeline {
+  private static final Stage[] STAGES = Stage.values();
+  public static final RequestTimeline NONE = new RequestTimeline(false);
+
+  public enum Stage {
+    // Reading a stored snapshot, or waiting for another instance's fetch of it.
+    STORE("store"),
+    // Waiting on a load another request started.
+    JOIN("join"),
+    TOKEN("token"),
+    // Waiting in SpotifyRequestScheduler for rate budget and a concurrency slot.
+    QUEUE("queue"),
+    // Spotify HTTP calls up to the response headers.
+    SPOTIFY("spotify"),
+    // Reading and parsing Spotify response bodies, which are parsed as they stream in.
+    PARSE("parse"),
+    DEDUPE("dedupe"),
+    ENRICH("enrich"),
+    SORT("sort"),
+    ENCODE("encode"),
+    QUERY("query");
+
+    private final String metricName;
+
+    Stage(String metricName) {
+      this.metricName = metricName;
+    }
+  }
+
+  private final boolean enabled;
+  private final long startedAt = System.nanoTime();
+  private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+  private final AtomicLongArray counts = new AtomicLongArray(STAGES.length);
+  private volatile String source;
+
+  private RequestTimeline(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public static RequestTimeline start() {
+    return new RequestTimeline(true);
+  }
+
+  // Records the time since startedNanos, a System.nanoTime() reading taken when the stage began.
+  public void record(Stage stage, long startedNanos) {
+    recordNanos(stage, System.nanoTime() - startedNanos);
+  }
+
+  public void recordNanos(Stage stage, long durationNanos) {
+    if (!enabled) {
+      return;
+    }
+    nanos.addAndGet(stage.ordinal(), Math.max(0, durationNanos));
+    counts.incrementAndGet(stage.ordinal());
+  }
+
+  // How the playlist was obtained: hit, stale, joined, store, shared, fetched, revalidated or fallback.
+  public void setSource(String source) {
+    if (enabled) {
+      this.source = source;
+    }
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public long elapsedNanos() {
+    return System.nanoTime() - startedAt;
+  }
+
+  // Server-Timing header value: each recorded stage in milliseconds, its call count when above one, then the total.
+  public String toServerTiming() {
+    StringBuilder header = new StringBuilder();
+    if (source != null) {
+      header.append("source;desc=").append(source).append(", ");
+    }
+    for (Stage stage : STAGES) {
+      long count = counts.get(stage.ordinal());
+      if (count == 0) {
+        continue;
+      }
+      header.append(stage.metricName).append(";dur=").append(millis(nanos.get(stage.ordinal())));
+      if (count > 1) {
+        header.append(";desc=\"").append(count).append(" calls\"");
+      }
+      header.append(", ");
+    }
+    return header.append("total;dur=").append(millis(elapsedNanos())).toString();
+  }
+
+  // The same figures as key=value pairs, in the form the rest of the log uses.
+  public String toLogFields() {
+    StringBuilder fields = new StringBuilder();
+    if (source != null) {
+      fields.append("source=").append(source).append(", ");
+    }
+    fields.append("totalMs=").append(millis(elapsedNanos()));
+    for (Stage stage : STAGES) {
+      long count = counts.get(stage.ordinal());
+      if (count == 0) {
+        continue;
+      }
+      fields.append(", ").append(stage.metricName).append("Ms=").append(millis(nanos.get(stage.ordinal())));
+      if (count > 1) {
+        fields.append(", ").append(stage.metricName).append("Calls=").append(count);
+      }
+    }
+    return fields.toString();
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+  }
+}
@@ -0,0 +1,103 @@
+package io.github.pingisfun.muzikant.service;
+
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Merges year-sorted track lists into one year-sorted sequence, dropping tracks whose id was already produced. Tracks
+// of the same year come out in list order, so a track in several lists is kept from the earliest. Each track costs at
+// most O(log k) for k lists and nothing is merged before it is asked for, so taking the first n tracks is O(n log k)
+// however long the lists are.
+public class SortedTrackMerge implements Iterator<TrackDto> {
+  private static final Comparator<Cursor> ORDER = (a, b) -> a.year != b.year
+    ? Integer.compare(a.year, b.year)
+    : Integer.compare(a.listIndex, b.listIndex);
+
+  private final PriorityQueue<Cursor> heads = new PriorityQueue<>(ORDER);
+  private final Set<String> seen = new HashSet<>();
+  // The list currently ahead, kept out of the heap while it stays ahead, so a run of tracks from one list costs one
+  // comparison each rather than a heap update.
+  private Cursor leader;
+  private TrackDto next;
+
+  public SortedTrackMerge(List<List<TrackDto>> sortedLists) {
+    for (int i = 0; i < sortedLists.size(); i++) {
+      List<TrackDto> tracks = sortedLists.get(i);
+      if (tracks != null && !tracks.isEmpty()) {
+        heads.add(new Cursor(tracks, i));
+      }
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (next == null) {
+      if (leader == null) {
+        leader = heads.poll();
+        if (leader == null) {
+          break;
+        }
+      } else if (!heads.isEmpty() && ORDER.compare(heads.peek(), leader) < 0) {
+        heads.add(leader);
+        leader = heads.poll();
+      }
+      TrackDto track = leader.tracks.get(leader.position);
+      if (!leader.advance()) {
+        leader = null;
+      }
+      if (seen.add(track.getId())) {
+        next = track;
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public TrackDto next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    TrackDto track = next;
+    next = null;
+    return track;
+  }
+
+  // Up to limit merged tracks, or all of them when limit is null.
+  public List<TrackDto> take(Integer limit) {
+    List<TrackDto> tracks = new ArrayList<>();
+    while ((limit == null || tracks.size() < limit) && hasNext()) {
+      tracks.add(next());
+    }
+    return tracks;
+  }
+
+  private static class Cursor {
+    private final List<TrackDto> tracks;
+    private final int listIndex;
+    private int position;
+    // The current track's year, with tracks without one last as in SpotifyApiService.BY_YEAR.
+    private int year;
+
+    private Cursor(List<TrackDto> tracks, int listIndex) {
+      this.tracks = tracks;
+      this.listIndex = listIndex;
+      this.position = -1;
+      advance();
+    }
+
+    private boolean advance() {
+      if (++position >= tracks.size()) {
+        return false;
+      }
+      Integer current = tracks.get(position).getYear();
+      year = current != null ? current : Integer.MAX_VALUE;
+      return true;
+    }
+  }
+}
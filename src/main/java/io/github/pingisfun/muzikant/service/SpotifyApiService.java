@@ -1,8 +1,13 @@
 package io.github.pingisfun.muzikant.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.github.pingisfun.muzikant.model.PlaylistResponse;
 import io.github.pingisfun.muzikant.model.TrackDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.time.Instant;
 import java.time.Duration;
 import java.util.ArrayList;
@@ -12,154 +17,500 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @Service
 public class SpotifyApiService {
-  private static final String TRACK_FIELDS = "items(track(id,name,artists(name),album(name,release_date),external_urls(spotify))),next";
+  private static final String TRACK_FIELDS = "items(track(id,name,artists(name),album(name,release_date),external_urls(spotify))),next,total";
+  // With year enrichment on, pages also carry the album id, type and date precision it picks albums by.
+  private static final String ENRICHED_TRACK_FIELDS = "items(track(id,name,artists(name),"
+    + "album(id,name,release_date,release_date_precision,album_type),external_urls(spotify))),next,total";
+  private static final int PAGE_SIZE = 100;
+  static final Comparator<TrackDto> BY_YEAR = Comparator.comparing(
+    TrackDto::getYear,
+    Comparator.nullsLast(Integer::compareTo)
+  );
 
   private static final Logger log = LoggerFactory.getLogger(SpotifyApiService.class);
 
   private final RestTemplate restTemplate;
   private final SpotifyTokenService tokenService;
-  private final Semaphore spotifySemaphore;
-
-  // Backend enforces global Spotify backoff and serializes API calls to respect Spotify Web API rate limits.
-  private final AtomicLong retryAfterEpochMs = new AtomicLong(0);
+  private final SpotifyRequestScheduler scheduler;
+  private final SpotifyTrackPageParser pageParser;
+  private final ReleaseYearEnricher yearEnricher;
+  private final String apiBaseUrl;
+  private final String trackFields;
+  private final int bulkMinTracks;
+  private final MeterRegistry meterRegistry;
+  private final Timer fetchTimer;
+  private final DistributionSummary pagesPerPlaylist;
+  private final DistributionSummary tracksPerPlaylist;
+  private final Counter duplicatesDropped;
+  private final ExecutorService pageExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
+  // All Spotify calls pass through the scheduler, which enforces the global rate budget and Retry-After backoff.
   public SpotifyApiService(
     RestTemplate restTemplate,
     SpotifyTokenService tokenService,
-    @Value("${spotify.max.concurrent.calls:1}") int maxConcurrentCalls
+    SpotifyRequestScheduler scheduler,
+    SpotifyTrackPageParser pageParser,
+    ReleaseYearEnricher yearEnricher,
+    MeterRegistry meterRegistry,
+    @Value("${spotify.api.base.url:https://api.spotify.com/v1}") String apiBaseUrl,
+    @Value("${spotify.bulk.min.tracks:1000}") int bulkMinTracks
   ) {
     this.restTemplate = restTemplate;
     this.tokenService = tokenService;
-    this.spotifySemaphore = new Semaphore(Math.max(1, maxConcurrentCalls));
+    this.scheduler = scheduler;
+    this.pageParser = pageParser;
+    this.yearEnricher = yearEnricher;
+    this.apiBaseUrl = apiBaseUrl;
+    this.trackFields = yearEnricher.isEnabled() ? ENRICHED_TRACK_FIELDS : TRACK_FIELDS;
+    this.bulkMinTracks = bulkMinTracks;
+    this.meterRegistry = meterRegistry;
+    this.fetchTimer = Timer.builder("playlist.fetch")
+      .description("Time to fetch a whole playlist from Spotify")
+      .publishPercentileHistogram()
+      .register(meterRegistry);
+    this.pagesPerPlaylist = DistributionSummary.builder("playlist.fetch.pages")
+      .description("Track pages fetched per playlist")
+      .register(meterRegistry);
+    this.tracksPerPlaylist = DistributionSummary.builder("playlist.fetch.tracks")
+      .description("Tracks kept per fetched playlist")
+      .register(meterRegistry);
+    this.duplicatesDropped = Counter.builder("playlist.fetch.duplicates")
+      .description("Tracks dropped because they repeat an earlier track in the playlist")
+      .register(meterRegistry);
+  }
+
+  public PlaylistSnapshot fetchPlaylist(String playlistId) {
+    return fetchPlaylist(playlistId, PlaylistPageListener.NONE);
+  }
+
+  public PlaylistSnapshot fetchPlaylist(String playlistId, PlaylistPageListener listener) {
+    return fetchPlaylist(playlistId, listener, SpotifyCallContext.INTERACTIVE);
+  }
+
+  public PlaylistSnapshot fetchPlaylist(
+    String playlistId,
+    PlaylistPageListener listener,
+    SpotifyCallContext context
+  ) {
+    Future<PlaylistMetadataResponse> metadata = pageExecutor.submit(() -> fetchPlaylistMetadata(playlistId, null, context));
+    return fetchPlaylist(playlistId, listener, context, metadata);
+  }
+
+  // One conditional metadata call decides whether the cached playlist is still current; only a changed snapshot_id
+  // pays for the track walk. The previous snapshot is returned, re-dated, when nothing changed, and the listener is
+  // only fed when the playlist is fetched again.
+  public PlaylistSnapshot revalidate(
+    PlaylistSnapshot previous,
+    PlaylistPageListener listener,
+    SpotifyCallContext context
+  ) {
+    String playlistId = previous.getPlaylistId();
+    Instant checkedAt = Instant.now();
+    PlaylistMetadataResponse metadata = fetchPlaylistMetadata(playlistId, previous.getEtag(), context);
+    if (metadata.notModified) {
+      countRevalidation("not_modified");
+      return previous.revalidated(checkedAt, previous.getEtag());
+    }
+    if (
+      metadata.snapshotId != null &&
+      metadata.snapshotId.equals(previous.getSnapshotId()) &&
+      Objects.equals(metadata.name, previous.getPlaylist().getName())
+    ) {
+      countRevalidation("unchanged");
+      return previous.revalidated(checkedAt, metadata.etag);
+    }
+    countRevalidation("changed");
+    log.info(
+      "Playlist changed on Spotify. playlistId={}, snapshotId={}, previousSnapshotId={}",
+      playlistId,
+      metadata.snapshotId,
+      previous.getSnapshotId()
+    );
+    return fetchPlaylist(playlistId, listener, context, CompletableFuture.completedFuture(metadata));
   }
 
-  public PlaylistResponse fetchPlaylist(String playlistId) {
+  private PlaylistSnapshot fetchPlaylist(
+    String playlistId,
+    PlaylistPageListener listener,
+    SpotifyCallContext context,
+    Future<PlaylistMetadataResponse> playlistMetadata
+  ) {
     Instant started = Instant.now();
     AtomicInteger requestCount = new AtomicInteger(0);
+    AtomicInteger pageCount = new AtomicInteger(0);
+    AtomicInteger duplicateCount = new AtomicInteger(0);
     log.info("Spotify playlist fetch start. playlistId={}", playlistId);
+    RequestTimeline timeline = context.timeline();
     List<TrackDto> results = new ArrayList<>();
     Set<String> seen = new HashSet<>();
+    Consumer<SpotifyTrackPage> onPage = page -> {
+      pageCount.incrementAndGet();
+      int before = results.size();
+      long dedupeStarted = System.nanoTime();
+      duplicateCount.addAndGet(page.getDuplicates() + addTracks(results, seen, page.getTracks()));
+      timeline.record(RequestTimeline.Stage.DEDUPE, dedupeStarted);
+      if (results.size() > before) {
+        listener.onTracks(List.copyOf(results.subList(before, results.size())));
+      }
+    };
 
-    String playlistName = fetchPlaylistName(playlistId);
+    PlaylistMetadataResponse metadata;
+    SpotifyCallContext remaining = context;
+    try {
+      SpotifyTrackPage first = getPage(tracksUrl(playlistId, 0), requestCount, context);
+      metadata = await(playlistMetadata);
+      listener.onName(metadata.name);
+      if (first != null && first.getTracks() != null) {
+        onPage.accept(first);
+        // The first page answers quickly at the caller's priority; the rest of a large playlist yields to small ones.
+        boolean bulk = first.getTotal() == null || first.getTotal() > bulkMinTracks;
+        remaining = bulk ? context.atMost(SpotifyCallPriority.BULK) : context;
+        fetchRemainingPages(playlistId, first, requestCount, remaining, onPage);
+      }
+    } catch (RuntimeException e) {
+      playlistMetadata.cancel(true);
+      throw e;
+    }
+    if (yearEnricher.isEnabled()) {
+      long enrichStarted = System.nanoTime();
+      enrichYears(playlistId, results, requestCount, remaining);
+      timeline.record(RequestTimeline.Stage.ENRICH, enrichStarted);
+    }
 
-    String nextUrl = UriComponentsBuilder
-      .fromHttpUrl("https://api.spotify.com/v1/playlists/" + playlistId + "/tracks")
-      .queryParam("limit", 100)
-      .queryParam("offset", 0)
-      .queryParam("fields", TRACK_FIELDS)
+    long sortStarted = System.nanoTime();
+    results.sort(BY_YEAR);
+    timeline.record(RequestTimeline.Stage.SORT, sortStarted);
+    Duration duration = Duration.between(started, Instant.now());
+    fetchTimer.record(duration);
+    pagesPerPlaylist.record(pageCount.get());
+    tracksPerPlaylist.record(results.size());
+    duplicatesDropped.increment(duplicateCount.get());
+    log.info(
+      "Spotify playlist fetch complete. playlistId={}, pages={}, requests={}, tracks={}, duplicates={}, durationMs={}",
+      playlistId,
+      pageCount.get(),
+      requestCount.get(),
+      results.size(),
+      duplicateCount.get(),
+      duration.toMillis()
+    );
+    return new PlaylistSnapshot(
+      playlistId,
+      metadata.snapshotId,
+      metadata.etag,
+      started,
+      new PlaylistResponse(metadata.name, results)
+    );
+  }
+
+  // The first page reports the total, so the remaining offsets are requested concurrently and handed on in offset order.
+  private void fetchRemainingPages(
+    String playlistId,
+    SpotifyTrackPage first,
+    AtomicInteger requestCount,
+    SpotifyCallContext context,
+    Consumer<SpotifyTrackPage> onPage
+  ) {
+    if (first.getTotal() == null) {
+      followNext(first.getNext(), requestCount, context, onPage);
+      return;
+    }
+    List<Future<SpotifyTrackPage>> remaining = new ArrayList<>();
+    for (int offset = PAGE_SIZE; offset < first.getTotal(); offset += PAGE_SIZE) {
+      String url = tracksUrl(playlistId, offset);
+      remaining.add(pageExecutor.submit(() -> getPage(url, requestCount, context)));
+    }
+    try {
+      for (Future<SpotifyTrackPage> future : remaining) {
+        SpotifyTrackPage page = await(future);
+        if (page != null && page.getTracks() != null) {
+          onPage.accept(page);
+        }
+      }
+    } catch (RuntimeException e) {
+      remaining.forEach(future -> future.cancel(true));
+      throw e;
+    }
+  }
+
+  private void followNext(
+    String nextUrl,
+    AtomicInteger requestCount,
+    SpotifyCallContext context,
+    Consumer<SpotifyTrackPage> onPage
+  ) {
+    while (nextUrl != null && !nextUrl.isBlank()) {
+      SpotifyTrackPage page = getPage(nextUrl, requestCount, context);
+      if (page == null || page.getTracks() == null) {
+        break;
+      }
+      onPage.accept(page);
+      nextUrl = page.getNext();
+    }
+  }
+
+  private String tracksUrl(String playlistId, int offset) {
+    return UriComponentsBuilder
+      .fromHttpUrl(apiBaseUrl + "/playlists/" + playlistId + "/tracks")
+      .queryParam("limit", PAGE_SIZE)
+      .queryParam("offset", offset)
+      .queryParam("fields", trackFields)
       .build()
       .encode()
       .toUriString();
+  }
 
-    while (nextUrl != null && !nextUrl.isBlank()) {
-      PlaylistTracksResponse page = getWithCount(nextUrl, PlaylistTracksResponse.class, requestCount);
-      if (page == null || page.items == null) {
-        break;
+  // Looks up what the year cache does not know yet in batches as large as Spotify allows, all queued on the scheduler
+  // together. Enrichment is best effort: a batch that fails leaves its tracks with the year from the playlist page.
+  private void enrichYears(
+    String playlistId,
+    List<TrackDto> tracks,
+    AtomicInteger requestCount,
+    SpotifyCallContext context
+  ) {
+    List<String> lookup = yearEnricher.plan(tracks);
+    List<Future<?>> batches = new ArrayList<>();
+    for (List<String> albumIds : batches(lookup, ReleaseYearEnricher.ALBUM_BATCH_SIZE)) {
+      batches.add(pageExecutor.submit(() -> fetchAlbumYears(albumIds, requestCount, context)));
+    }
+    int failed = 0;
+    for (Future<?> batch : batches) {
+      try {
+        await(batch);
+      } catch (RuntimeException e) {
+        failed++;
+        log.warn("Release year lookup failed. playlistId={}, error={}", playlistId, e.toString());
       }
-      addTracks(results, seen, page.items);
-      nextUrl = page.next;
     }
+    int corrected = yearEnricher.apply(tracks);
+    if (!lookup.isEmpty() || corrected > 0) {
+      log.info(
+        "Release years enriched. playlistId={}, albumLookups={}, batches={}, failedBatches={}, corrected={}",
+        playlistId,
+        lookup.size(),
+        batches.size(),
+        failed,
+        corrected
+      );
+    }
+  }
 
-    results.sort(Comparator.comparing(TrackDto::getYear, Comparator.nullsLast(Integer::compareTo)));
-    long durationMs = Duration.between(started, Instant.now()).toMillis();
-    int totalRequests = Math.max(requestCount.get(), 1);
-    long averageRequestMs = durationMs / totalRequests;
-    log.info(
-      "Spotify playlist fetch complete. playlistId={}, requests={}, durationMs={}, avgRequestMs={}",
-      playlistId,
-      totalRequests,
-      durationMs,
-      averageRequestMs
-    );
-    return new PlaylistResponse(playlistName, results);
+  private void fetchAlbumYears(List<String> albumIds, AtomicInteger counter, SpotifyCallContext context) {
+    counter.incrementAndGet();
+    AlbumsResponse response = get("several_albums", idsUrl("/albums", albumIds), null, context, extractor(AlbumsResponse.class));
+    Set<String> missing = new HashSet<>(albumIds);
+    if (response != null && response.albums != null) {
+      for (AlbumResponse album : response.albums) {
+        if (album != null && album.id != null) {
+          List<String> recordingCopyrights = album.copyrights == null ? List.of() : album.copyrights.stream()
+            .filter(copyright -> copyright != null && "P".equals(copyright.type) && copyright.text != null)
+            .map(copyright -> copyright.text)
+            .toList();
+          yearEnricher.putAlbum(album.id, album.albumType, recordingCopyrights);
+          missing.remove(album.id);
+        }
+      }
+    }
+    missing.forEach(albumId -> yearEnricher.putAlbum(albumId, null, List.of()));
   }
 
-  private String fetchPlaylistName(String playlistId) {
+  private String idsUrl(String path, List<String> ids) {
+    return UriComponentsBuilder
+      .fromHttpUrl(apiBaseUrl + path)
+      .queryParam("ids", String.join(",", ids))
+      .build()
+      .encode()
+      .toUriString();
+  }
+
+  private <T> HttpMessageConverterExtractor<T> extractor(Class<T> type) {
+    return new HttpMessageConverterExtractor<>(type, restTemplate.getMessageConverters());
+  }
+
+  private static List<List<String>> batches(List<String> ids, int size) {
+    List<List<String>> batches = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += size) {
+      batches.add(ids.subList(from, Math.min(ids.size(), from + size)));
+    }
+    return batches;
+  }
+
+  // Sends If-None-Match when an ETag from an earlier response is known; a 304 comes back as notModified.
+  private PlaylistMetadataResponse fetchPlaylistMetadata(
+    String playlistId,
+    String etag,
+    SpotifyCallContext context
+  ) {
     String url = UriComponentsBuilder
-      .fromHttpUrl("https://api.spotify.com/v1/playlists/" + playlistId)
-      .queryParam("fields", "name")
+      .fromHttpUrl(apiBaseUrl + "/playlists/" + playlistId)
+      .queryParam("fields", "name,snapshot_id")
       .build()
       .encode()
       .toUriString();
-    PlaylistNameResponse response = get(url, PlaylistNameResponse.class);
-    return response != null ? response.name : null;
+    HttpMessageConverterExtractor<PlaylistMetadataResponse> bodyExtractor =
+      new HttpMessageConverterExtractor<>(PlaylistMetadataResponse.class, restTemplate.getMessageConverters());
+    return get("playlist", url, etag, context, response -> {
+      if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+        PlaylistMetadataResponse notModified = new PlaylistMetadataResponse();
+        notModified.notModified = true;
+        return notModified;
+      }
+      PlaylistMetadataResponse metadata = bodyExtractor.extractData(response);
+      metadata = metadata != null ? metadata : new PlaylistMetadataResponse();
+      metadata.etag = response.getHeaders().getETag();
+      return metadata;
+    });
   }
 
-  private <T> T getWithCount(String url, Class<T> responseType, AtomicInteger counter) {
-    counter.incrementAndGet();
-    return get(url, responseType);
+  private void countRevalidation(String outcome) {
+    Counter.builder("playlist.revalidations")
+      .description("Cached playlists checked against Spotify, by outcome")
+      .tag("outcome", outcome)
+      .register(meterRegistry)
+      .increment();
   }
 
-  private <T> T get(String url, Class<T> responseType) {
-    waitIfNeeded();
+  private <T> T await(Future<T> future) {
     try {
-      spotifySemaphore.acquire();
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Spotify page fetch failed.", e.getCause());
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
-      throw new SpotifyRateLimitException("Spotify API temporarily unavailable. Please try again shortly.");
-    }
-    try {
-      return executeWithBackoff(url, responseType);
-    } finally {
-      spotifySemaphore.release();
+      throw SpotifyRateLimitException.unavailable();
     }
   }
 
-  private void waitIfNeeded() {
-    long now = System.currentTimeMillis();
-    long retryUntil = retryAfterEpochMs.get();
-    if (now < retryUntil) {
-      long waitMs = retryUntil - now;
-      log.warn("Waiting {} ms before Spotify request (rate limited until {}).", waitMs, Instant.ofEpochMilli(retryUntil));
-      sleepMillis(waitMs);
-    }
+  private SpotifyTrackPage getPage(String url, AtomicInteger counter, SpotifyCallContext context) {
+    counter.incrementAndGet();
+    return get("tracks", url, null, context, response -> pageParser.parse(response.getBody()));
   }
 
-  private <T> T executeWithBackoff(String url, Class<T> responseType) {
+  private <T> T get(
+    String endpoint,
+    String url,
+    String etag,
+    SpotifyCallContext context,
+    ResponseExtractor<T> extractor
+  ) {
     try {
-      return doGet(url, responseType);
+      return scheduled(endpoint, url, etag, context, extractor);
     } catch (HttpClientErrorException.TooManyRequests e) {
-      int retrySeconds = parseRetryAfterSeconds(e);
-      long retryUntil = System.currentTimeMillis() + (retrySeconds * 1000L);
-      retryAfterEpochMs.set(retryUntil);
-      log.warn("Spotify 429 received. Global backoff until {}.", Instant.ofEpochMilli(retryUntil));
-      sleepMillis(retrySeconds * 1000L);
+      scheduler.onRateLimited(parseRetryAfter(e));
       try {
-        return doGet(url, responseType);
+        return scheduled(endpoint, url, etag, context, extractor);
       } catch (HttpClientErrorException.TooManyRequests retryError) {
-        throw new SpotifyRateLimitException("Spotify API temporarily unavailable. Please try again shortly.");
+        scheduler.onRateLimited(parseRetryAfter(retryError));
+        throw SpotifyRateLimitException.unavailable();
       }
     }
   }
 
-  private <T> T doGet(String url, Class<T> responseType) {
-    HttpHeaders headers = new HttpHeaders();
-    headers.setBearerAuth(tokenService.getValidAccessToken());
-    HttpEntity<Void> entity = new HttpEntity<>(headers);
-    ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET, entity, responseType);
-    return response.getBody();
+  private <T> T scheduled(
+    String endpoint,
+    String url,
+    String etag,
+    SpotifyCallContext context,
+    ResponseExtractor<T> extractor
+  ) {
+    long queued = System.nanoTime();
+    scheduler.acquire(context);
+    context.timeline().record(RequestTimeline.Stage.QUEUE, queued);
+    long started = System.nanoTime();
+    boolean succeeded = false;
+    try {
+      T result = doGet(endpoint, url, etag, context.timeline(), extractor);
+      succeeded = true;
+      return result;
+    } finally {
+      scheduler.release(endpoint, System.nanoTime() - started, succeeded);
+    }
+  }
+
+  // The timeline gets the exchange and the parsing of its body as separate stages.
+  private <T> T doGet(
+    String endpoint,
+    String url,
+    String etag,
+    RequestTimeline timeline,
+    ResponseExtractor<T> extractor
+  ) {
+    long tokenStarted = System.nanoTime();
+    String accessToken = tokenService.getValidAccessToken();
+    timeline.record(RequestTimeline.Stage.TOKEN, tokenStarted);
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String[] status = {"IO_ERROR"};
+    long[] parseNanos = {-1};
+    long started = System.nanoTime();
+    try {
+      return restTemplate.execute(
+        url,
+        HttpMethod.GET,
+        request -> {
+          request.getHeaders().setBearerAuth(accessToken);
+          request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+          if (etag != null) {
+            request.getHeaders().setIfNoneMatch(etag);
+          }
+        },
+        response -> {
+          status[0] = String.valueOf(response.getStatusCode().value());
+          long parseStarted = System.nanoTime();
+          try {
+            return extractor.extractData(response);
+          } finally {
+            parseNanos[0] = System.nanoTime() - parseStarted;
+          }
+        }
+      );
+    } catch (HttpStatusCodeException e) {
+      status[0] = String.valueOf(e.getStatusCode().value());
+      throw e;
+    } finally {
+      long elapsed = System.nanoTime() - started;
+      timeline.recordNanos(RequestTimeline.Stage.SPOTIFY, elapsed - Math.max(0, parseNanos[0]));
+      if (parseNanos[0] >= 0) {
+        timeline.recordNanos(RequestTimeline.Stage.PARSE, parseNanos[0]);
+      }
+      sample.stop(
+        Timer.builder("spotify.requests")
+          .description("Latency of Spotify Web API calls, including reading the response body")
+          .tag("endpoint", endpoint)
+          .tag("status", status[0])
+          .publishPercentileHistogram()
+          .register(meterRegistry)
+      );
+    }
   }
 
-  private int parseRetryAfterSeconds(HttpClientErrorException.TooManyRequests e) {
-    return Optional.ofNullable(e.getResponseHeaders())
+  private Duration parseRetryAfter(HttpClientErrorException.TooManyRequests e) {
+    int seconds = Optional.ofNullable(e.getResponseHeaders())
       .map(headers -> headers.getFirst("Retry-After"))
       .flatMap(value -> {
         try {
@@ -169,100 +520,49 @@ public class SpotifyApiService {
         }
       })
       .orElse(5);
+    return Duration.ofSeconds(seconds);
   }
 
-  private void sleepMillis(long waitMs) {
-    try {
-      Thread.sleep(waitMs);
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-    }
-  }
-
-  private void addTracks(List<TrackDto> results, Set<String> seen, List<PlaylistTrackItem> items) {
-    if (items == null || items.isEmpty()) {
-      return;
-    }
-    for (PlaylistTrackItem item : items) {
-      if (item == null || item.track == null || item.isLocal) {
-        continue;
-      }
-      if (item.track.id == null || item.track.id.isBlank()) {
-        continue;
-      }
-      if (!seen.add(item.track.id)) {
-        continue;
-      }
-      String artists = buildArtistNames(item.track.artists);
-      String album = item.track.album != null ? item.track.album.name : null;
-      Integer year = extractYear(item.track.album != null ? item.track.album.releaseDate : null);
-      String spotifyUrl = item.track.externalUrls != null ? item.track.externalUrls.spotify : null;
-      results.add(new TrackDto(item.track.id, item.track.name, artists, album, year, spotifyUrl));
-    }
-  }
-
-  private String buildArtistNames(List<SpotifyArtist> artists) {
-    if (artists == null || artists.isEmpty()) {
-      return "";
-    }
-    return artists.stream()
-      .map(artist -> artist != null ? artist.name : null)
-      .filter(Objects::nonNull)
-      .filter(name -> !name.isBlank())
-      .collect(Collectors.joining(", "));
-  }
-
-  private Integer extractYear(String releaseDate) {
-    if (releaseDate == null || releaseDate.isBlank()) {
-      return null;
+  // Returns how many tracks were dropped as repeats of tracks from earlier pages.
+  static int addTracks(List<TrackDto> results, Set<String> seen, List<TrackDto> tracks) {
+    if (tracks == null || tracks.isEmpty()) {
+      return 0;
     }
-    if (releaseDate.length() >= 4) {
-      try {
-        return Integer.parseInt(releaseDate.substring(0, 4));
-      } catch (NumberFormatException ignored) {
-        return null;
+    int duplicates = 0;
+    for (TrackDto track : tracks) {
+      if (seen.add(track.getId())) {
+        results.add(track);
+      } else {
+        duplicates++;
       }
     }
-    return null;
-  }
-
-
-  private static class PlaylistTracksResponse {
-    public List<PlaylistTrackItem> items;
-    public String next;
+    return duplicates;
   }
 
-  private static class PlaylistTrackItem {
-    @JsonProperty("is_local")
-    public boolean isLocal;
-    public SpotifyTrack track;
+  private static class AlbumsResponse {
+    public List<AlbumResponse> albums;
   }
 
-  private static class SpotifyTrack {
+  private static class AlbumResponse {
     public String id;
-    public String name;
-    public SpotifyAlbum album;
-    public List<SpotifyArtist> artists;
-    @JsonProperty("external_urls")
-    public SpotifyExternalUrls externalUrls;
-  }
-
-  private static class SpotifyAlbum {
-    public String name;
-    @JsonProperty("release_date")
-    public String releaseDate;
-  }
-
-  private static class SpotifyArtist {
-    public String name;
+    @JsonProperty("album_type")
+    public String albumType;
+    public List<CopyrightResponse> copyrights;
   }
 
-  private static class SpotifyExternalUrls {
-    public String spotify;
+  private static class CopyrightResponse {
+    public String text;
+    public String type;
   }
 
-  private static class PlaylistNameResponse {
+  private static class PlaylistMetadataResponse {
     public String name;
+    @JsonProperty("snapshot_id")
+    public String snapshotId;
+    @JsonIgnore
+    public String etag;
+    @JsonIgnore
+    public boolean notModified;
   }
 
 }
@@ -22,6 +22,7 @@ public class SpotifyAuthService {
   private final String clientId;
   private final String clientSecret;
   private final String redirectUri;
+  private final String accountsBaseUrl;
   private String lastState;
 
   // This backend uses a single host Spotify account for personal use and does not allow third-party user authentication.
@@ -30,18 +31,20 @@ public class SpotifyAuthService {
     SpotifyTokenService tokenService,
     @Value("${spotify.client.id}") String clientId,
     @Value("${spotify.client.secret}") String clientSecret,
-    @Value("${spotify.redirect.uri}") String redirectUri
+    @Value("${spotify.redirect.uri}") String redirectUri,
+    @Value("${spotify.accounts.base.url:https://accounts.spotify.com}") String accountsBaseUrl
   ) {
     this.restTemplate = restTemplate;
     this.tokenService = tokenService;
     this.clientId = clientId;
     this.clientSecret = clientSecret;
     this.redirectUri = redirectUri;
+    this.accountsBaseUrl = accountsBaseUrl;
   }
 
   public synchronized String buildLoginUrl() {
     lastState = UUID.randomUUID().toString();
-    UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl("https://accounts.spotify.com/authorize")
+    UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(accountsBaseUrl + "/authorize")
       .queryParam("response_type", "code")
       .queryParam("client_id", clientId)
       .queryParam("redirect_uri", redirectUri)
@@ -68,7 +71,7 @@ public class SpotifyAuthService {
 
     HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
     SpotifyTokenResponse response = restTemplate.postForObject(
-      "https://accounts.spotify.com/api/token",
+      accountsBaseUrl + "/api/token",
       request,
       SpotifyTokenResponse.class
     );
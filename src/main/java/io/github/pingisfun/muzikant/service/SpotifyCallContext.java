@@ -0,0 +1,53 @@
+package io.github.pingisfun.muzikant.service;
+
+import java.time.Instant;
+
+// What SpotifyRequestScheduler ranks a waiting call by. Both values are read again while the call waits, so a load
+// follows the clients waiting on it as they join and time out. A null deadline never expires. The timeline
+// collects how long the calls spent in each stage for the request that started the load.
+public interface SpotifyCallContext {
+  SpotifyCallContext INTERACTIVE = of(SpotifyCallPriority.INTERACTIVE);
+
+  SpotifyCallPriority priority();
+
+  Instant deadline();
+
+  default RequestTimeline timeline() {
+    return RequestTimeline.NONE;
+  }
+
+  static SpotifyCallContext of(SpotifyCallPriority priority) {
+    return new SpotifyCallContext() {
+      @Override
+      public SpotifyCallPriority priority() {
+        return priority;
+      }
+
+      @Override
+      public Instant deadline() {
+        return null;
+      }
+    };
+  }
+
+  // The same call, never more urgent than cap.
+  default SpotifyCallContext atMost(SpotifyCallPriority cap) {
+    SpotifyCallContext base = this;
+    return new SpotifyCallContext() {
+      @Override
+      public SpotifyCallPriority priority() {
+        return base.priority().atMost(cap);
+      }
+
+      @Override
+      public Instant deadline() {
+        return base.deadline();
+      }
+
+      @Override
+      public RequestTimeline timeline() {
+        return base.timeline();
+      }
+    };
+  }
+}
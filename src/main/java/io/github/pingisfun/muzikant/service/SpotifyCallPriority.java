@@ -0,0 +1,15 @@
+package io.github.pingisfun.muzikant.service;
+
+// How urgently a Spotify call is needed, most urgent first. INTERACTIVE calls serve a waiting client; BULK calls are
+// the remaining pages of large playlists and get a guaranteed share of admissions; BACKGROUND calls (warm-up and
+// refreshes nobody is waiting for) only use rate budget that the other classes leave unused.
+public enum SpotifyCallPriority {
+  INTERACTIVE,
+  BULK,
+  BACKGROUND;
+
+  // The less urgent of the two.
+  public SpotifyCallPriority atMost(SpotifyCallPriority other) {
+    return compareTo(other) >= 0 ? this : other;
+  }
+}
@@ -4,4 +4,9 @@ public class SpotifyRateLimitException extends RuntimeException {
   public SpotifyRateLimitException(String message) {
     super(message);
   }
+
+  // The 503 every caller gets while Spotify is rate-limiting, failing or unreachable.
+  public static SpotifyRateLimitException unavailable() {
+    return new SpotifyRateLimitException("Spotify API temporarily unavailable. Please try again shortly.");
+  }
 }
@@ -0,0 +1,18 @@
+package io.github.pingisfun.muzikant.service;
+
+import java.time.Instant;
+
+// The Spotify rate budget (spotify.rate.requests per spotify.rate.window) and the pause a 429 imposes.
+// SpotifyRequestScheduler asks it before admitting each call. spotify.shared.store picks the implementation: "local"
+// budgets this instance alone, "redis" makes every instance spend from one budget and honour each other's pauses.
+public interface SpotifyRateState {
+  // Takes one call from the budget if keepFree (a share of the budget) would still be left afterwards. Returns 0 when
+  // the call was taken, otherwise the nanoseconds until asking again is worthwhile.
+  long tryTake(double keepFree);
+
+  // Stops admission until the given time.
+  void pause(Instant until);
+
+  // End of the latest pause, or null when there has been none.
+  Instant pausedUntil();
+}
@@ -0,0 +1,494 @@
+package io.github.pingisfun.muzikant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Admits Spotify calls within the rate budget kept by SpotifyRateState, with a limit on calls in flight. A 429 pauses
+// admission for Retry-After plus jitter and empties the budget, so queued callers resume one refill interval apart
+// instead of retrying together. With a shared SpotifyRateState, a pause any instance records stops all of them; it is
+// polled off the request path, and the budget is asked for outside the lock, since each is a network round trip.
+//
+// The concurrency limit starts at spotify.max.concurrent.calls and, unless spotify.concurrency.adaptive is false,
+// follows AIMD between 1 and spotify.concurrency.max. A successful call made while the limit was the bottleneck adds
+// 1/limit, so the limit grows by about one per round of calls. A 429 halves it, and a call slower than twice the
+// smoothed latency of its endpoint cuts it by a quarter, at most once per round trip. Metadata calls, track pages and
+// track batches take very different times, so each is only compared with calls to the same endpoint.
+//
+// Waiting calls are ranked by priority class, then by earliest deadline, then by arrival. INTERACTIVE calls overtake
+// BULK ones, except that BULK is admitted for spotify.rate.bulk.share of admissions while both are waiting, so a large
+// playlist still progresses. BACKGROUND calls only run when neither is waiting and leave spotify.rate.background.reserve
+// of the bucket untouched. Non-interactive calls leave one concurrency slot free. A call still queued at its deadline
+// carries on as BACKGROUND without one: its client has stopped waiting, but the load it belongs to still finishes and
+// fills the cache for the next request. A client joining that load with a later deadline restores its priority.
+//
+// While a Retry-After pause has more than spotify.rate.fail.fast.after left, the circuit is open. INTERACTIVE and BULK
+// calls, queued or new, fail at once so callers can serve what they already have; BACKGROUND calls wait it out.
+@Component
+public class SpotifyRequestScheduler {
+  private static final Logger log = LoggerFactory.getLogger(SpotifyRequestScheduler.class);
+  private static final long WAIT_FOR_RELEASE = -1;
+  private static final double LATENCY_SPIKE_RATIO = 2.0;
+  private static final double SPIKE_BACKOFF = 0.75;
+  private static final double RATE_LIMIT_BACKOFF = 0.5;
+  private static final double LATENCY_SMOOTHING = 0.05;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Deque<Waiter> queue = new ArrayDeque<>();
+  private final SpotifyRateState rateState;
+  private final boolean adaptive;
+  private final int maxLimit;
+  private final double backgroundReserve;
+  private final double bulkCreditPerGrant;
+  private final long jitterNanos;
+  private final long failFastAfterNanos;
+  private final Map<SpotifyCallPriority, Timer> waitTimers = new EnumMap<>(SpotifyCallPriority.class);
+  // Keyed by the endpoint name SpotifyApiService tags its calls with.
+  private final Map<String, Double> smoothedLatencyNanos = new HashMap<>();
+  private final Counter expired;
+  private final Counter rejected;
+  private final Counter rateLimited;
+  private final DistributionSummary pauseSeconds;
+
+  // System.nanoTime() at which the latest pause ends. Written under the lock, read anywhere.
+  private volatile long pausedUntil;
+  // Set while the head of the queue asks the rate state for budget, so nothing overtakes it meanwhile.
+  private boolean taking;
+  private int inFlight;
+  private double limit;
+  private long lastCutAt;
+  private double bulkCredit;
+
+  public SpotifyRequestScheduler(
+    SpotifyRateState rateState,
+    @Value("${spotify.rate.jitter:500ms}") Duration jitter,
+    @Value("${spotify.rate.fail.fast.after:2s}") Duration failFastAfter,
+    @Value("${spotify.max.concurrent.calls:1}") int maxConcurrentCalls,
+    @Value("${spotify.concurrency.adaptive:true}") boolean adaptive,
+    @Value("${spotify.concurrency.max:16}") int maxLimit,
+    @Value("${spotify.rate.background.reserve:0.5}") double backgroundReserve,
+    @Value("${spotify.rate.bulk.share:0.2}") double bulkShare,
+    MeterRegistry meterRegistry
+  ) {
+    this.rateState = rateState;
+    this.adaptive = adaptive;
+    this.maxLimit = Math.max(1, maxLimit);
+    this.limit = Math.min(this.maxLimit, Math.max(1, maxConcurrentCalls));
+    this.backgroundReserve = Math.max(0, backgroundReserve);
+    // Each INTERACTIVE admission made while BULK waits earns BULK this much of its next turn.
+    double share = Math.min(0.9, Math.max(0, bulkShare));
+    this.bulkCreditPerGrant = share / (1 - share);
+    this.jitterNanos = Math.max(0, jitter.toNanos());
+    this.failFastAfterNanos = Math.max(0, failFastAfter.toNanos());
+    this.pausedUntil = System.nanoTime();
+    for (SpotifyCallPriority priority : SpotifyCallPriority.values()) {
+      waitTimers.put(priority, Timer.builder("spotify.scheduler.wait")
+        .description("Time a Spotify call waits for rate budget and a concurrency slot")
+        .tag("priority", priority.name().toLowerCase())
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+    }
+    this.expired = Counter.builder("spotify.scheduler.expired")
+      .description("Spotify calls moved to background priority because their deadline passed while queued")
+      .register(meterRegistry);
+    this.rejected = Counter.builder("spotify.circuit.rejected")
+      .description("Spotify calls failed at once because a long Retry-After pause was in effect")
+      .register(meterRegistry);
+    this.rateLimited = Counter.builder("spotify.rate.limited")
+      .description("Spotify responses with status 429")
+      .register(meterRegistry);
+    this.pauseSeconds = DistributionSummary.builder("spotify.rate.pause")
+      .description("Pause imposed after a 429, Retry-After plus jitter")
+      .baseUnit("seconds")
+      .register(meterRegistry);
+    Gauge.builder("spotify.scheduler.queued", this, SpotifyRequestScheduler::queued)
+      .description("Spotify calls waiting for admission")
+      .register(meterRegistry);
+    Gauge.builder("spotify.scheduler.in.flight", this, SpotifyRequestScheduler::inFlight)
+      .description("Spotify calls currently admitted")
+      .register(meterRegistry);
+    Gauge.builder("spotify.concurrency.limit", this, SpotifyRequestScheduler::concurrencyLimit)
+      .description("Current limit on Spotify calls in flight")
+      .register(meterRegistry);
+    Gauge.builder("spotify.circuit.open", this, scheduler -> scheduler.isFailingFast() ? 1 : 0)
+      .description("1 while calls fail fast during a long Retry-After pause")
+      .register(meterRegistry);
+  }
+
+  public void acquire() {
+    acquire(SpotifyCallContext.INTERACTIVE);
+  }
+
+  public void acquire(SpotifyCallContext context) {
+    long started = System.nanoTime();
+    lock.lock();
+    try {
+      Waiter waiter = new Waiter(lock.newCondition(), context);
+      queue.addLast(waiter);
+      try {
+        while (true) {
+          long untilDeadline = waiter.nanosUntilDeadline();
+          if (untilDeadline <= 0) {
+            waiter.demote();
+            expired.increment();
+            signalHead();
+            continue;
+          }
+          if (waiter.priority() != SpotifyCallPriority.BACKGROUND && failingFast(System.nanoTime())) {
+            queue.remove(waiter);
+            signalHead();
+            rejected.increment();
+            throw SpotifyRateLimitException.unavailable();
+          }
+          if (taking || next() != waiter) {
+            // This call may have been the head until its load's priority dropped; the one now ahead is woken.
+            signalHead();
+            await(waiter, untilDeadline);
+            continue;
+          }
+          SpotifyCallPriority priority = waiter.priority();
+          long delay = grantDelay(System.nanoTime(), priority);
+          if (delay == 0) {
+            delay = takeBudget(priority);
+          }
+          if (delay == 0) {
+            queue.remove(waiter);
+            account(priority);
+            signalHead();
+            waitTimers.get(priority).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return;
+          }
+          if (next() != waiter) {
+            signalHead();
+          }
+          await(waiter, delay == WAIT_FOR_RELEASE ? untilDeadline : Math.min(delay, untilDeadline));
+        }
+      } catch (InterruptedException e) {
+        queue.remove(waiter);
+        signalHead();
+        Thread.currentThread().interrupt();
+        throw SpotifyRateLimitException.unavailable();
+      } catch (RuntimeException e) {
+        queue.remove(waiter);
+        signalHead();
+        throw e;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // A call that completed feeds its latency to the limit; failed calls only free their slot.
+  public void release(String endpoint, long latencyNanos, boolean succeeded) {
+    lock.lock();
+    try {
+      if (succeeded && adaptive) {
+        adapt(endpoint, latencyNanos, System.nanoTime());
+      }
+      inFlight--;
+      signalHead();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Called after a waiting load's priority or deadline changed, so the queue is ranked again.
+  public void reprioritized() {
+    lock.lock();
+    try {
+      signalHead();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void onRateLimited(Duration retryAfter) {
+    long now = System.nanoTime();
+    long jitter = jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos) : 0;
+    long until = now + retryAfter.toNanos() + jitter;
+    Instant pauseEnd = Instant.now().plusNanos(until - now);
+    lock.lock();
+    try {
+      extendPause(until);
+      if (adaptive) {
+        cut(RATE_LIMIT_BACKOFF, now, "rate limited");
+      }
+      rateLimited.increment();
+      pauseSeconds.record((retryAfter.toNanos() + jitter) / 1e9);
+      log.warn(
+        "Spotify 429 received. Pausing requests until {}, queued={}, concurrencyLimit={}.",
+        Instant.now().plusNanos(pausedUntil - now),
+        queue.size(),
+        slots()
+      );
+    } finally {
+      lock.unlock();
+    }
+    rateState.pause(pauseEnd);
+  }
+
+  // Picks up a pause another instance recorded in a shared SpotifyRateState.
+  @Scheduled(fixedDelay = 250, timeUnit = TimeUnit.MILLISECONDS)
+  public void refreshPause() {
+    Instant shared = rateState.pausedUntil();
+    if (shared == null) {
+      return;
+    }
+    long until = System.nanoTime() + Duration.between(Instant.now(), shared).toNanos();
+    if (until - pausedUntil <= 0) {
+      return;
+    }
+    lock.lock();
+    try {
+      extendPause(until);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean isFailingFast() {
+    return failingFast(System.nanoTime());
+  }
+
+  public int queued() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int inFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int concurrencyLimit() {
+    lock.lock();
+    try {
+      return slots();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean failingFast(long now) {
+    return pausedUntil - now > failFastAfterNanos;
+  }
+
+  // Queued calls that can no longer wait out the pause are woken to fail.
+  private void extendPause(long until) {
+    if (until - pausedUntil <= 0) {
+      return;
+    }
+    pausedUntil = until;
+    if (failingFast(System.nanoTime())) {
+      queue.forEach(waiter -> waiter.ready.signal());
+    }
+  }
+
+  private int slots() {
+    return (int) limit;
+  }
+
+  private void adapt(String endpoint, long latencyNanos, long now) {
+    Double smoothed = smoothedLatencyNanos.get(endpoint);
+    if (smoothed == null) {
+      smoothedLatencyNanos.put(endpoint, (double) latencyNanos);
+      return;
+    }
+    if (latencyNanos > smoothed * LATENCY_SPIKE_RATIO) {
+      cut(SPIKE_BACKOFF, now, "latency spike");
+    } else if (inFlight >= slots() && limit < maxLimit) {
+      int before = slots();
+      limit = Math.min(maxLimit, limit + 1 / limit);
+      if (slots() != before) {
+        log.info(
+          "Spotify concurrency limit raised to {}. endpoint={}, latencyMs={}",
+          slots(),
+          endpoint,
+          Math.round(smoothed / 1e6)
+        );
+      }
+    }
+    smoothedLatencyNanos.put(endpoint, smoothed + LATENCY_SMOOTHING * (latencyNanos - smoothed));
+  }
+
+  // The slowest endpoint's smoothed latency, or 0 before any call completed.
+  private double roundTripNanos() {
+    double slowest = 0;
+    for (double latency : smoothedLatencyNanos.values()) {
+      slowest = Math.max(slowest, latency);
+    }
+    return slowest;
+  }
+
+  // Calls already in flight report the same congestion, so one cut per round trip is enough.
+  private void cut(double factor, long now, String reason) {
+    if (lastCutAt != 0 && now - lastCutAt < roundTripNanos()) {
+      return;
+    }
+    lastCutAt = now;
+    int before = slots();
+    limit = Math.max(1, limit * factor);
+    if (slots() != before) {
+      log.info(
+        "Spotify concurrency limit cut to {} ({}). latencyMs={}",
+        slots(),
+        reason,
+        Math.round(roundTripNanos() / 1e6)
+      );
+    }
+  }
+
+  private long grantDelay(long now, SpotifyCallPriority priority) {
+    long paused = pausedUntil;
+    if (paused - now > 0) {
+      return paused - now;
+    }
+    return hasSlot(priority) ? 0 : WAIT_FOR_RELEASE;
+  }
+
+  private boolean hasSlot(SpotifyCallPriority priority) {
+    int slots = priority == SpotifyCallPriority.INTERACTIVE ? slots() : Math.max(1, slots() - 1);
+    return inFlight < slots;
+  }
+
+  // Called with the lock held by the head of the queue once it has a slot. The lock is let go while the rate state is
+  // asked, and the slot stays reserved meanwhile; it is handed back when the budget refuses the call.
+  private long takeBudget(SpotifyCallPriority priority) {
+    taking = true;
+    inFlight++;
+    long delay = WAIT_FOR_RELEASE;
+    lock.unlock();
+    try {
+      delay = rateState.tryTake(priority == SpotifyCallPriority.BACKGROUND ? backgroundReserve : 0);
+      return delay;
+    } finally {
+      lock.lock();
+      taking = false;
+      if (delay != 0) {
+        inFlight--;
+      }
+    }
+  }
+
+  private Waiter next() {
+    Waiter interactive = null;
+    Waiter bulk = null;
+    Waiter background = null;
+    for (Waiter waiter : queue) {
+      switch (waiter.priority()) {
+        case INTERACTIVE -> interactive = earlier(interactive, waiter);
+        case BULK -> bulk = earlier(bulk, waiter);
+        case BACKGROUND -> background = earlier(background, waiter);
+      }
+    }
+    // BULK takes its turn only when it can run now, so it never holds INTERACTIVE out of the slot kept for it.
+    if (interactive != null && (bulk == null || bulkCredit < 1 || !hasSlot(SpotifyCallPriority.BULK))) {
+      return interactive;
+    }
+    return bulk != null ? bulk : background;
+  }
+
+  private void account(SpotifyCallPriority priority) {
+    if (priority == SpotifyCallPriority.BULK) {
+      bulkCredit = Math.max(0, bulkCredit - 1);
+    } else if (priority == SpotifyCallPriority.INTERACTIVE && queue.stream().anyMatch(Waiter::isBulk)) {
+      bulkCredit = Math.min(1, bulkCredit + bulkCreditPerGrant);
+    }
+  }
+
+  // Queue order breaks ties, so calls without a deadline stay first come, first served.
+  private static Waiter earlier(Waiter current, Waiter candidate) {
+    if (current == null) {
+      return candidate;
+    }
+    Instant currentDeadline = current.context.deadline();
+    Instant candidateDeadline = candidate.context.deadline();
+    if (candidateDeadline == null) {
+      return current;
+    }
+    return currentDeadline == null || candidateDeadline.isBefore(currentDeadline) ? candidate : current;
+  }
+
+  private static void await(Waiter waiter, long nanos) throws InterruptedException {
+    if (nanos == Long.MAX_VALUE) {
+      waiter.ready.await();
+    } else {
+      waiter.ready.awaitNanos(nanos);
+    }
+  }
+
+  private void signalHead() {
+    Waiter head = next();
+    if (head != null) {
+      head.ready.signal();
+    }
+  }
+
+  private static final class Waiter {
+    private final Condition ready;
+    private final SpotifyCallContext context;
+    // The deadline that passed while this call was queued, or null while it has not.
+    private Instant expiredDeadline;
+
+    private Waiter(Condition ready, SpotifyCallContext context) {
+      this.ready = ready;
+      this.context = context;
+    }
+
+    private SpotifyCallPriority priority() {
+      return demoted() ? SpotifyCallPriority.BACKGROUND : context.priority();
+    }
+
+    private boolean isBulk() {
+      return priority() == SpotifyCallPriority.BULK;
+    }
+
+    private long nanosUntilDeadline() {
+      Instant deadline = context.deadline();
+      return deadline == null || demoted() ? Long.MAX_VALUE : Duration.between(Instant.now(), deadline).toNanos();
+    }
+
+    private void demote() {
+      expiredDeadline = context.deadline();
+    }
+
+    // Demoted until a joining client moves the deadline later.
+    private boolean demoted() {
+      if (expiredDeadline == null) {
+        return false;
+      }
+      Instant deadline = context.deadline();
+      if (deadline != null && deadline.isAfter(expiredDeadline)) {
+        expiredDeadline = null;
+        return false;
+      }
+      return true;
+    }
+  }
+}
@@ -5,9 +5,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+// Runs before the other ApplicationRunners; a failure here stops startup before HotPlaylistWarmer calls Spotify.
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class SpotifyStartupValidator implements ApplicationRunner {
   private static final Logger log = LoggerFactory.getLogger(SpotifyStartupValidator.class);
 
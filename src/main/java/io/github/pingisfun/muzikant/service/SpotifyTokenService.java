@@ -1,12 +1,24 @@
 package io.github.pingisfun.muzikant.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -14,51 +26,141 @@ import org.springframework.web.client.RestTemplate;
 
 @Service
 public class SpotifyTokenService {
+  private static final Logger log = LoggerFactory.getLogger(SpotifyTokenService.class);
+  private static final Duration EXPIRY_SKEW = Duration.ofSeconds(60);
+  private static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+
   private final RestTemplate restTemplate;
   private final String clientId;
   private final String clientSecret;
+  private final String accountsBaseUrl;
+  private final Duration refreshAhead;
+  private final MeterRegistry meterRegistry;
+  private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
-  private String accessToken;
-  private Instant expiresAt;
-  private String refreshToken;
+  // Readers only ever see a complete token; refreshes swap in a new holder instead of mutating fields.
+  private final AtomicReference<AccessToken> current = new AtomicReference<>();
+  private final AtomicReference<CompletableFuture<AccessToken>> pendingRefresh = new AtomicReference<>();
+  private volatile String refreshToken;
+  private volatile Instant nextAttemptAt = Instant.MIN;
 
   public SpotifyTokenService(
     RestTemplate restTemplate,
     @Value("${spotify.client.id}") String clientId,
     @Value("${spotify.client.secret}") String clientSecret,
-    @Value("${spotify.refresh.token:}") String refreshToken
+    @Value("${spotify.refresh.token:}") String refreshToken,
+    @Value("${spotify.accounts.base.url:https://accounts.spotify.com}") String accountsBaseUrl,
+    @Value("${spotify.token.refresh.ahead:5m}") Duration refreshAhead,
+    MeterRegistry meterRegistry
   ) {
     this.restTemplate = restTemplate;
     this.clientId = clientId;
     this.clientSecret = clientSecret;
+    this.accountsBaseUrl = accountsBaseUrl;
+    this.refreshAhead = refreshAhead;
+    this.meterRegistry = meterRegistry;
     if (refreshToken != null && !refreshToken.isBlank()) {
       this.refreshToken = refreshToken.trim();
     }
   }
 
-  public synchronized void updateFromAuthorization(SpotifyTokenResponse tokenResponse) {
-    this.accessToken = tokenResponse.getAccessToken();
-    this.expiresAt = Instant.now().plusSeconds(tokenResponse.getExpiresIn());
+  public void updateFromAuthorization(SpotifyTokenResponse tokenResponse) {
     if (tokenResponse.getRefreshToken() != null && !tokenResponse.getRefreshToken().isBlank()) {
       this.refreshToken = tokenResponse.getRefreshToken();
     }
+    current.set(new AccessToken(tokenResponse.getAccessToken(), tokenResponse.getExpiresIn(), refreshAhead));
   }
 
-  public synchronized String getValidAccessToken() {
+  // Only a caller with no usable token waits for Spotify; a token inside its refresh window is returned while a
+  // background refresh replaces it.
+  public String getValidAccessToken() {
     if (refreshToken == null || refreshToken.isBlank()) {
       throw new IllegalStateException("spotify.refresh.token is not set. Complete /oauth/login first.");
     }
-    if (accessToken == null || expiresAt == null || Instant.now().isAfter(expiresAt.minusSeconds(60))) {
-      refreshAccessToken();
+    AccessToken token = current.get();
+    Instant now = Instant.now();
+    if (token != null && now.isBefore(token.refreshAt)) {
+      return token.value;
+    }
+    if (token != null && token.isUsable(now)) {
+      if (!now.isBefore(nextAttemptAt)) {
+        refreshAsync();
+      }
+      return token.value;
+    }
+    try {
+      return refreshAsync().join().value;
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
     }
-    return accessToken;
   }
 
-  public synchronized String getRefreshToken() {
+  public String getRefreshToken() {
     return refreshToken;
   }
 
-  private void refreshAccessToken() {
+  // Refreshes ahead of expiry so request threads normally never see a token inside its refresh window.
+  @Scheduled(fixedDelay = 15, timeUnit = TimeUnit.SECONDS)
+  public void refreshIfDue() {
+    if (refreshToken == null || refreshToken.isBlank()) {
+      return;
+    }
+    AccessToken token = current.get();
+    Instant now = Instant.now();
+    if ((token == null || !now.isBefore(token.refreshAt)) && !now.isBefore(nextAttemptAt)) {
+      refreshAsync();
+    }
+  }
+
+  // At most one refresh POST is in flight; every caller that needs a new token shares its result.
+  private CompletableFuture<AccessToken> refreshAsync() {
+    while (true) {
+      CompletableFuture<AccessToken> pending = pendingRefresh.get();
+      if (pending != null) {
+        return pending;
+      }
+      CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+      if (pendingRefresh.compareAndSet(null, refresh)) {
+        refreshExecutor.execute(() -> runRefresh(refresh));
+        return refresh;
+      }
+    }
+  }
+
+  private void runRefresh(CompletableFuture<AccessToken> refresh) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "failure";
+    try {
+      AccessToken token = refreshAccessToken();
+      outcome = "success";
+      current.set(token);
+      nextAttemptAt = Instant.MIN;
+      refresh.complete(token);
+    } catch (RuntimeException e) {
+      // The current token, if it has not expired yet, keeps serving requests until a later attempt succeeds.
+      nextAttemptAt = Instant.now().plus(RETRY_DELAY);
+      AccessToken token = current.get();
+      log.warn(
+        "Spotify access token refresh failed. usableUntil={}",
+        token != null ? token.expiresAt.minus(EXPIRY_SKEW) : null,
+        e
+      );
+      refresh.completeExceptionally(e);
+    } finally {
+      sample.stop(
+        Timer.builder("spotify.token.refresh")
+          .description("Latency of Spotify access token refreshes")
+          .tag("outcome", outcome)
+          .register(meterRegistry)
+      );
+      pendingRefresh.compareAndSet(refresh, null);
+    }
+  }
+
+  private AccessToken refreshAccessToken() {
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
     headers.set("Authorization", "Basic " + basicAuthHeader());
@@ -69,18 +171,41 @@ public class SpotifyTokenService {
 
     HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
     SpotifyTokenResponse response = restTemplate.postForObject(
-      "https://accounts.spotify.com/api/token",
+      accountsBaseUrl + "/api/token",
       request,
       SpotifyTokenResponse.class
     );
     if (response == null || response.getAccessToken() == null) {
       throw new IllegalStateException("Failed to refresh Spotify access token.");
     }
-    updateFromAuthorization(response);
+    if (response.getRefreshToken() != null && !response.getRefreshToken().isBlank()) {
+      this.refreshToken = response.getRefreshToken();
+    }
+    return new AccessToken(response.getAccessToken(), response.getExpiresIn(), refreshAhead);
   }
 
   private String basicAuthHeader() {
     String creds = clientId + ":" + clientSecret;
     return Base64.getEncoder().encodeToString(creds.getBytes(StandardCharsets.UTF_8));
   }
+
+  private static final class AccessToken {
+    private final String value;
+    private final Instant expiresAt;
+    private final Instant refreshAt;
+
+    private AccessToken(String value, long expiresInSeconds, Duration refreshAhead) {
+      Instant now = Instant.now();
+      Duration lifetime = Duration.ofSeconds(expiresInSeconds);
+      // Short-lived tokens are refreshed halfway through so the window never starts before the token is issued.
+      Duration ahead = refreshAhead.compareTo(lifetime.dividedBy(2)) > 0 ? lifetime.dividedBy(2) : refreshAhead;
+      this.value = value;
+      this.expiresAt = now.plus(lifetime);
+      this.refreshAt = expiresAt.minus(ahead);
+    }
+
+    private boolean isUsable(Instant now) {
+      return now.isBefore(expiresAt.minus(EXPIRY_SKEW));
+    }
+  }
 }
@@ -0,0 +1,35 @@
+package io.github.pingisfun.muzikant.service;
+
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.util.List;
+
+public class SpotifyTrackPage {
+  private final List<TrackDto> tracks;
+  private final String next;
+  private final Integer total;
+  private final int duplicates;
+
+  public SpotifyTrackPage(List<TrackDto> tracks, String next, Integer total, int duplicates) {
+    this.tracks = tracks;
+    this.next = next;
+    this.total = total;
+    this.duplicates = duplicates;
+  }
+
+  public List<TrackDto> getTracks() {
+    return tracks;
+  }
+
+  public String getNext() {
+    return next;
+  }
+
+  public Integer getTotal() {
+    return total;
+  }
+
+  // Tracks dropped while parsing because they repeat an earlier track on the same page.
+  public int getDuplicates() {
+    return duplicates;
+  }
+}
@@ -0,0 +1,236 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+
+// Decodes a /v1/playlists/{id}/tracks page straight from the token stream into TrackDto, without binding the
+// intermediate item/track/album/artist objects. Local tracks, tracks without an id and repeats within the page are
+// dropped while parsing; repeats across pages are dropped by the caller, which sees pages in playlist order.
+@Component
+public class SpotifyTrackPageParser {
+  private final JsonFactory jsonFactory;
+
+  public SpotifyTrackPageParser(ObjectMapper objectMapper) {
+    this.jsonFactory = objectMapper.getFactory();
+  }
+
+  public SpotifyTrackPage parse(InputStream body) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(body)) {
+      return parse(parser);
+    }
+  }
+
+  public SpotifyTrackPage parse(byte[] body) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(body)) {
+      return parse(parser);
+    }
+  }
+
+  private SpotifyTrackPage parse(JsonParser parser) throws IOException {
+    List<TrackDto> tracks = new ArrayList<>();
+    String next = null;
+    Integer total = null;
+    int duplicates = 0;
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      return null;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      switch (field) {
+        case "items" -> {
+          if (value == JsonToken.START_ARRAY) {
+            duplicates = readItems(parser, tracks);
+          } else if (value == JsonToken.VALUE_NULL) {
+            tracks = null;
+          } else {
+            parser.skipChildren();
+          }
+        }
+        case "next" -> next = parser.getValueAsString();
+        case "total" -> total = value == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+        default -> parser.skipChildren();
+      }
+    }
+    return new SpotifyTrackPage(tracks, next, total, duplicates);
+  }
+
+  private int readItems(JsonParser parser, List<TrackDto> tracks) throws IOException {
+    Set<String> seen = new HashSet<>();
+    int duplicates = 0;
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      boolean isLocal = false;
+      TrackDto track = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("is_local".equals(field)) {
+          isLocal = parser.getValueAsBoolean();
+        } else if ("track".equals(field) && value == JsonToken.START_OBJECT) {
+          track = readTrack(parser);
+        } else {
+          track = "track".equals(field) ? null : track;
+          parser.skipChildren();
+        }
+      }
+      if (track == null || isLocal || track.getId() == null || track.getId().isBlank()) {
+        continue;
+      }
+      if (seen.add(track.getId())) {
+        tracks.add(track);
+      } else {
+        duplicates++;
+      }
+    }
+    return duplicates;
+  }
+
+  private TrackDto readTrack(JsonParser parser) throws IOException {
+    String id = null;
+    String name = null;
+    String artists = "";
+    String album = null;
+    String albumId = null;
+    String albumType = null;
+    String precision = null;
+    Integer year = null;
+    String spotifyUrl = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      switch (field) {
+        case "id" -> id = parser.getValueAsString();
+        case "name" -> name = parser.getValueAsString();
+        case "artists" -> artists = value == JsonToken.START_ARRAY ? readArtistNames(parser) : skip(parser, "");
+        case "album" -> {
+          album = null;
+          albumId = null;
+          albumType = null;
+          precision = null;
+          year = null;
+          if (value == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+              String albumField = parser.currentName();
+              JsonToken albumValue = parser.nextToken();
+              if ("name".equals(albumField)) {
+                album = parser.getValueAsString();
+              } else if ("id".equals(albumField)) {
+                albumId = parser.getValueAsString();
+              } else if ("album_type".equals(albumField)) {
+                albumType = parser.getValueAsString();
+              } else if ("release_date_precision".equals(albumField)) {
+                precision = parser.getValueAsString();
+              } else if ("release_date".equals(albumField)) {
+                year = albumValue.isScalarValue() && albumValue != JsonToken.VALUE_NULL ? parseYear(parser) : null;
+              } else {
+                parser.skipChildren();
+              }
+            }
+          } else {
+            parser.skipChildren();
+          }
+        }
+        case "external_urls" -> {
+          spotifyUrl = null;
+          if (value == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+              parser.nextToken();
+              if ("spotify".equals(parser.currentName())) {
+                spotifyUrl = parser.getValueAsString();
+              } else {
+                parser.skipChildren();
+              }
+            }
+          } else {
+            parser.skipChildren();
+          }
+        }
+        default -> parser.skipChildren();
+      }
+    }
+    TrackDto track = new TrackDto(id, name, artists, album, year, spotifyUrl);
+    track.setAlbumId(albumId);
+    track.setAlbumType(albumType);
+    track.setReleaseDatePrecision(precision);
+    return track;
+  }
+
+  // Joins the non-blank artist names of the array the parser is at, as LegacyPageBinding.buildArtistNames did.
+  static String readArtistNames(JsonParser parser) throws IOException {
+    StringBuilder names = new StringBuilder();
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      String name = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        if ("name".equals(field)) {
+          name = parser.getValueAsString();
+        } else {
+          parser.skipChildren();
+        }
+      }
+      if (name != null && !name.isBlank()) {
+        if (!names.isEmpty()) {
+          names.append(", ");
+        }
+        names.append(name);
+      }
+    }
+    return names.toString();
+  }
+
+  // Reads the year from the first four characters of the release date in the parser's buffer, matching
+  // Integer.parseInt(releaseDate.substring(0, 4)) without allocating either string.
+  private Integer parseYear(JsonParser parser) throws IOException {
+    char[] chars = parser.getTextCharacters();
+    int offset = parser.getTextOffset();
+    if (parser.getTextLength() < 4) {
+      return null;
+    }
+    return parseYear(chars, offset);
+  }
+
+  static Integer parseYear(char[] chars, int offset) {
+    int index = offset;
+    int end = offset + 4;
+    boolean negative = false;
+    if (chars[index] == '-' || chars[index] == '+') {
+      negative = chars[index] == '-';
+      index++;
+    }
+    int year = 0;
+    for (; index < end; index++) {
+      int digit = Character.digit(chars[index], 10);
+      if (digit < 0) {
+        return null;
+      }
+      year = year * 10 + digit;
+    }
+    return negative ? -year : year;
+  }
+
+  private static <T> T skip(JsonParser parser, T fallback) throws IOException {
+    parser.skipChildren();
+    return fallback;
+  }
+}
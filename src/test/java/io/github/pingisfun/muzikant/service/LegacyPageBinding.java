@@ -0,0 +1,110 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// The page handling SpotifyTrackPageParser replaced: bind the whole page with Jackson, then map each item to a TrackDto
+// with buildArtistNames and extractYear. Kept as the baseline the streaming parser is checked and measured against.
+final class LegacyPageBinding {
+  private LegacyPageBinding() {
+  }
+
+  static PlaylistTracksResponse bind(ObjectMapper objectMapper, byte[] body) throws IOException {
+    return objectMapper.readValue(body, PlaylistTracksResponse.class);
+  }
+
+  static void addTracks(List<TrackDto> results, Set<String> seen, List<PlaylistTrackItem> items) {
+    if (items == null || items.isEmpty()) {
+      return;
+    }
+    for (PlaylistTrackItem item : items) {
+      if (item == null || item.track == null || item.isLocal) {
+        continue;
+      }
+      if (item.track.id == null || item.track.id.isBlank()) {
+        continue;
+      }
+      if (!seen.add(item.track.id)) {
+        continue;
+      }
+      String artists = buildArtistNames(item.track.artists);
+      String album = item.track.album != null ? item.track.album.name : null;
+      Integer year = extractYear(item.track.album != null ? item.track.album.releaseDate : null);
+      String spotifyUrl = item.track.externalUrls != null ? item.track.externalUrls.spotify : null;
+      results.add(new TrackDto(item.track.id, item.track.name, artists, album, year, spotifyUrl));
+    }
+  }
+
+  static String buildArtistNames(List<SpotifyArtist> artists) {
+    if (artists == null || artists.isEmpty()) {
+      return "";
+    }
+    return artists.stream()
+      .map(artist -> artist != null ? artist.name : null)
+      .filter(Objects::nonNull)
+      .filter(name -> !name.isBlank())
+      .collect(Collectors.joining(", "));
+  }
+
+  static Integer extractYear(String releaseDate) {
+    if (releaseDate == null || releaseDate.isBlank()) {
+      return null;
+    }
+    if (releaseDate.length() >= 4) {
+      try {
+        return Integer.parseInt(releaseDate.substring(0, 4));
+      } catch (NumberFormatException ignored) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  static class PlaylistTracksResponse {
+    public List<PlaylistTrackItem> items;
+    public String next;
+    public Integer total;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  static class PlaylistTrackItem {
+    @JsonProperty("is_local")
+    public boolean isLocal;
+    public SpotifyTrack track;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  static class SpotifyTrack {
+    public String id;
+    public String name;
+    public SpotifyAlbum album;
+    public List<SpotifyArtist> artists;
+    @JsonProperty("external_urls")
+    public SpotifyExternalUrls externalUrls;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  static class SpotifyAlbum {
+    public String name;
+    @JsonProperty("release_date")
+    public String releaseDate;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  static class SpotifyArtist {
+    public String name;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  static class SpotifyExternalUrls {
+    public String spotify;
+  }
+}
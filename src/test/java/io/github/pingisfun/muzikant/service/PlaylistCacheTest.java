@@ -0,0 +1,49 @@
+package io.github.pingisfun.muzikant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.pingisfun.muzikant.model.PlaylistResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PlaylistCacheTest {
+  private static final Duration TTL = Duration.ofMinutes(10);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final PlaylistCache cache = new PlaylistCache(Duration.ofHours(24), 100_000, meterRegistry);
+
+  @Test
+  void staleEntryIsReturnedButCountedAsMiss() {
+    cache.put(snapshot("fresh", Instant.now()));
+    cache.put(snapshot("stale", Instant.now().minus(TTL).minusSeconds(1)));
+
+    cache.get("fresh", TTL);
+    assertNotNull(cache.get("stale", TTL));
+    cache.get("absent", TTL);
+
+    CacheStats stats = cache.stats();
+    assertEquals(1, stats.hitCount());
+    assertEquals(2, stats.missCount());
+    assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "playlists").tag("result", "hit").functionCounter().count());
+    assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "playlists").tag("result", "miss").functionCounter().count());
+  }
+
+  @Test
+  void peekIsNotCounted() {
+    cache.put(snapshot("fresh", Instant.now()));
+
+    cache.peek("fresh");
+    cache.peek("absent");
+
+    assertEquals(0, cache.stats().requestCount());
+  }
+
+  private static PlaylistSnapshot snapshot(String playlistId, Instant fetchedAt) {
+    return new PlaylistSnapshot(playlistId, "s", null, fetchedAt, new PlaylistResponse(playlistId, List.of()));
+  }
+}
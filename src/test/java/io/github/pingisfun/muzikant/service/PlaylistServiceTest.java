@@ -0,0 +1,218 @@
+package io.github.pingisfun.muzikant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pingisfun.muzikant.model.PlaylistResponse;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PlaylistServiceTest {
+  private static final Duration REQUEST_TIMEOUT = Duration.ofMillis(150);
+  private static final int PAGES = 10;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  // Four calls up front, then one every 100ms: ten pages take well over the request timeout.
+  private final SpotifyRequestScheduler scheduler = new SpotifyRequestScheduler(
+    new LocalSpotifyRateState(4, Duration.ofMillis(400)),
+    Duration.ZERO,
+    Duration.ofSeconds(2),
+    1,
+    false,
+    1,
+    0.5,
+    0.2,
+    meterRegistry
+  );
+  private final PlaylistCache cache = new PlaylistCache(Duration.ofHours(1), 100_000, meterRegistry);
+  private final SpotifyApiService apiService = mock(SpotifyApiService.class);
+  private final PlaylistService playlistService = new PlaylistService(
+    apiService,
+    cache,
+    new PlaylistSnapshotStore() {
+      @Override
+      public PlaylistSnapshot load(String playlistId) {
+        return null;
+      }
+
+      @Override
+      public void save(PlaylistSnapshot snapshot) {
+      }
+    },
+    scheduler,
+    Duration.ofMinutes(10),
+    REQUEST_TIMEOUT,
+    new ObjectMapper()
+  );
+
+  @Test
+  void loadOutlivingRequestTimeoutStillFillsCache() throws Exception {
+    when(apiService.fetchPlaylist(eq("big"), any(), any())).thenAnswer(invocation -> {
+      SpotifyCallContext context = invocation.getArgument(2);
+      // Track pages run capped at BULK, as SpotifyApiService queues them.
+      SpotifyCallContext pages = context.atMost(SpotifyCallPriority.BULK);
+      for (int page = 0; page < PAGES; page++) {
+        scheduler.acquire(pages);
+        scheduler.release("tracks", 0, true);
+      }
+      return new PlaylistSnapshot("big", "snapshot", null, Instant.now(), new PlaylistResponse("Big", List.of()));
+    });
+
+    long started = System.nanoTime();
+    PlaylistSnapshot loaded = playlistService.getPlaylistAsync("big")
+      .thenApply(playlist -> cache.peek("big"))
+      .get(5, TimeUnit.SECONDS);
+
+    assertTrue(System.nanoTime() - started > REQUEST_TIMEOUT.toNanos());
+    assertTrue(meterRegistry.get("spotify.scheduler.expired").counter().count() > 0);
+    assertEquals("snapshot", loaded.getSnapshotId());
+    // The retry is served from the cache without asking Spotify again.
+    PlaylistResponse retried = playlistService.getPlaylistAsync("big").get(1, TimeUnit.SECONDS);
+    assertSame(loaded.getPlaylist(), retried);
+    verify(apiService, times(1)).fetchPlaylist(eq("big"), any(), any());
+  }
+
+  @Test
+  void fallbackAfterPartialStreamResetsListener() throws Exception {
+    PlaylistResponse previous = new PlaylistResponse("Old", List.of(track("a"), track("b")));
+    cache.put(new PlaylistSnapshot("mix", "old", null, Instant.now().minus(Duration.ofHours(1)), previous));
+    when(apiService.revalidate(any(), any(), any())).thenAnswer(invocation -> {
+      PlaylistPageListener listener = invocation.getArgument(1);
+      listener.onName("New");
+      listener.onTracks(List.of(track("c")));
+      throw SpotifyRateLimitException.unavailable();
+    });
+    RecordingListener listener = new RecordingListener();
+
+    PlaylistResponse served = playlistService.streamPlaylist("mix", listener).get(5, TimeUnit.SECONDS);
+
+    assertSame(previous, served);
+    assertEquals(List.of("playlist New", "tracks [c]", "reset", "playlist Old", "tracks [a, b]"), listener.events);
+  }
+
+  @Test
+  void fallbackBeforeAnythingStreamedIsNotReset() throws Exception {
+    PlaylistResponse previous = new PlaylistResponse("Old", List.of(track("a")));
+    cache.put(new PlaylistSnapshot("mix", "old", null, Instant.now().minus(Duration.ofHours(1)), previous));
+    when(apiService.revalidate(any(), any(), any())).thenThrow(SpotifyRateLimitException.unavailable());
+    RecordingListener listener = new RecordingListener();
+
+    playlistService.streamPlaylist("mix", listener).get(5, TimeUnit.SECONDS);
+
+    assertEquals(List.of("playlist Old", "tracks [a]"), listener.events);
+  }
+
+  @Test
+  void backgroundLoadDropsBackOnceInteractiveJoinerTimesOut() throws Exception {
+    BlockedFetch fetch = blockFetch("warm");
+
+    CompletableFuture<PlaylistSnapshot> warm = playlistService.refreshAsync("warm", Duration.ZERO);
+    SpotifyCallContext context = fetch.context();
+    playlistService.getPlaylistAsync("warm");
+
+    assertEquals(SpotifyCallPriority.INTERACTIVE, context.priority());
+    assertTrue(context.deadline() != null);
+    Thread.sleep(REQUEST_TIMEOUT.toMillis() + 50);
+    assertEquals(SpotifyCallPriority.BACKGROUND, context.priority());
+    assertNull(context.deadline());
+
+    fetch.release();
+    warm.get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void loadKeepsEarliestDeadlineOfClientsStillWaiting() throws Exception {
+    BlockedFetch fetch = blockFetch("busy");
+
+    playlistService.getPlaylistAsync("busy");
+    SpotifyCallContext context = fetch.context();
+    Instant first = context.deadline();
+    // A background refresh joining must not clear the client's deadline.
+    playlistService.refreshAsync("busy", Duration.ZERO);
+    assertEquals(first, context.deadline());
+
+    Thread.sleep(REQUEST_TIMEOUT.toMillis() / 2);
+    playlistService.getPlaylistAsync("busy");
+    assertEquals(first, context.deadline());
+
+    // Once the first client has timed out, the second one's deadline takes over.
+    Thread.sleep(REQUEST_TIMEOUT.toMillis() / 2 + 25);
+    assertEquals(SpotifyCallPriority.INTERACTIVE, context.priority());
+    assertTrue(context.deadline().isAfter(first));
+
+    fetch.release();
+  }
+
+  private BlockedFetch blockFetch(String playlistId) throws Exception {
+    BlockedFetch fetch = new BlockedFetch();
+    when(apiService.fetchPlaylist(eq(playlistId), any(), any())).thenAnswer(invocation -> {
+      fetch.started(invocation.getArgument(2));
+      fetch.released.await(5, TimeUnit.SECONDS);
+      return new PlaylistSnapshot(playlistId, "snapshot", null, Instant.now(), new PlaylistResponse("Name", List.of()));
+    });
+    return fetch;
+  }
+
+  private static TrackDto track(String id) {
+    return new TrackDto(id, id, "Artist", "Album", 2000, null);
+  }
+
+  // Records the events PlaylistEventStream would send.
+  private static class RecordingListener implements PlaylistPageListener {
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void onName(String name) {
+      events.add("playlist " + name);
+    }
+
+    @Override
+    public void onTracks(List<TrackDto> tracks) {
+      events.add("tracks " + tracks.stream().map(TrackDto::getId).toList());
+    }
+
+    @Override
+    public void onReset() {
+      events.add("reset");
+    }
+  }
+
+  // A fetch held open until the test releases it, exposing the context its Spotify calls would be queued with.
+  private static class BlockedFetch {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile SpotifyCallContext context;
+
+    private void started(SpotifyCallContext context) {
+      this.context = context;
+      started.countDown();
+    }
+
+    private SpotifyCallContext context() throws InterruptedException {
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      return context;
+    }
+
+    private void release() {
+      released.countDown();
+    }
+  }
+}
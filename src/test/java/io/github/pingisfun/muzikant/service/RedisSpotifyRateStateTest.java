@@ -0,0 +1,102 @@
+package io.github.pingisfun.muzikant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+class RedisSpotifyRateStateTest {
+  private static RedisServer server;
+  private static LettuceConnectionFactory connectionFactory;
+  private static StringRedisTemplate redis;
+
+  @BeforeAll
+  static void startRedis() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      port = socket.getLocalPort();
+    }
+    server = RedisServer.newRedisServer().bind("127.0.0.1").port(port).setting("save \"\"").build();
+    server.start();
+    connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+    connectionFactory.afterPropertiesSet();
+    redis = new StringRedisTemplate(connectionFactory);
+  }
+
+  @AfterAll
+  static void stopRedis() throws Exception {
+    connectionFactory.destroy();
+    server.stop();
+  }
+
+  @BeforeEach
+  void flush() {
+    redis.getConnectionFactory().getConnection().serverCommands().flushAll();
+  }
+
+  @Test
+  void earlierPauseDoesNotShortenLaterOne() {
+    Instant later = Instant.now().plusSeconds(60).truncatedTo(ChronoUnit.MILLIS);
+    instance().pause(later);
+    instance().pause(later.minusSeconds(30));
+
+    assertEquals(later, instance().pausedUntil());
+  }
+
+  @Test
+  void laterOfTwoCompetingPausesWins() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (int round = 0; round < 200; round++) {
+        flush();
+        Instant earlier = Instant.now().plusSeconds(30).truncatedTo(ChronoUnit.MILLIS);
+        Instant later = earlier.plusMillis(1 + round % 50);
+        SpotifyRateState first = instance();
+        SpotifyRateState second = instance();
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<Void> pauseLater = CompletableFuture.runAsync(() -> {
+          await(start);
+          first.pause(later);
+        }, executor);
+        CompletableFuture<Void> pauseEarlier = CompletableFuture.runAsync(() -> {
+          await(start);
+          second.pause(earlier);
+        }, executor);
+        start.countDown();
+        CompletableFuture.allOf(pauseLater, pauseEarlier).get();
+
+        assertEquals(later, instance().pausedUntil(), "round " + round);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // A new instance reads the shared pause on its first call rather than a copy it polled earlier.
+  private static SpotifyRateState instance() {
+    return new RedisSpotifyRateState(redis, 100, Duration.ofSeconds(30));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package io.github.pingisfun.muzikant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.pingisfun.muzikant.model.TrackDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ReleaseYearEnricherTest {
+  private final ReleaseYearEnricher enricher = new ReleaseYearEnricher(true, 1_000, new SimpleMeterRegistry());
+
+  @Test
+  void remasterTakesYearOfRecordingCopyright() {
+    // A 2009 remaster whose ISRC, GBAYE0601696, was assigned in 2006: dating it by ISRC moved it to 2006, neither
+    // the original release nor the remaster. The album's ℗ line dates the recording.
+    TrackDto track = track("Come Together - Remastered 2009", "Abbey Road (Remastered)", 2009, "day");
+    track.setAlbumId("abbey");
+    List<TrackDto> tracks = List.of(track);
+
+    assertEquals(List.of("abbey"), enricher.plan(tracks));
+    enricher.putAlbum("abbey", "album", List.of("℗ 1969 Example Records Ltd., 2009 remaster"));
+
+    assertEquals(1, enricher.apply(tracks));
+    assertEquals(1969, track.getYear());
+    assertEquals(List.of(), enricher.plan(tracks));
+  }
+
+  @Test
+  void albumIsLookedUpOnceForAllItsTracks() {
+    TrackDto first = track("Intro", "Greatest Hits", 2011, "day");
+    TrackDto second = track("Outro", "Greatest Hits", 2011, "day");
+    first.setAlbumType("compilation");
+    second.setAlbumType("compilation");
+    first.setAlbumId("hits");
+    second.setAlbumId("hits");
+
+    assertEquals(List.of("hits"), enricher.plan(List.of(first, second)));
+  }
+
+  @Test
+  void compilationNamingSeveralYearsIsLeftAlone() {
+    TrackDto track = track("Intro", "Greatest Hits", 2011, "day");
+    track.setAlbumType("compilation");
+    track.setAlbumId("hits");
+    enricher.putAlbum("hits", "compilation", List.of("℗ 1975 Example Records", "℗ 1982 Other Records"));
+
+    assertEquals(0, enricher.apply(List.of(track)));
+    assertEquals(2011, track.getYear());
+  }
+
+  @Test
+  void yearOnlyDateIsLookedUpButNeverMovedLater() {
+    TrackDto track = track("Song", "Album", 1999, "year");
+    track.setAlbumId("plain");
+
+    assertEquals(List.of("plain"), enricher.plan(List.of(track)));
+    enricher.putAlbum("plain", "album", List.of("℗ 2004 Example Records"));
+
+    assertEquals(0, enricher.apply(List.of(track)));
+    assertEquals(1999, track.getYear());
+  }
+
+  @Test
+  void preciselyDatedAlbumIsNotLookedUp() {
+    TrackDto track = track("Song", "Album", 1999, "day");
+    track.setAlbumId("plain");
+
+    assertEquals(List.of(), enricher.plan(List.of(track)));
+  }
+
+  private static TrackDto track(String title, String album, int year, String precision) {
+    TrackDto track = new TrackDto(title, title, "Artist", album, year, null);
+    track.setReleaseDatePrecision(precision);
+    return track;
+  }
+}
@@ -0,0 +1,126 @@
+package io.github.pingisfun.muzikant.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Builds /v1/playlists/{id}/tracks pages shaped like the responses to SpotifyApiService.TRACK_FIELDS, and the
+// /v1/albums answers release year enrichment asks for. The generator is seeded, so every run and every
+// fork benchmarks the same bytes.
+public final class SpotifyPageFixtures {
+  public static final int PAGE_SIZE = 100;
+
+  private static final String[] ARTISTS = {
+    "ABBA", "Kent", "Robyn", "The Knife", "Lykke Li", "First Aid Kit", "Roxette", "Ace of Base", "José González",
+    "Veronica Maggio", "Håkan Hellström", "Miriam Bryant", "Tove Lo", "Zara Larsson", "Avicii", "Swedish House Mafia"
+  };
+
+  private SpotifyPageFixtures() {
+  }
+
+  // Roughly 3% of tracks repeat an earlier track and 2% have no usable release date, as seen in large user playlists.
+  public static List<byte[]> pages(ObjectMapper objectMapper, int trackCount, long seed) {
+    List<byte[]> pages = new ArrayList<>();
+    for (int offset = 0; offset < trackCount; offset += PAGE_SIZE) {
+      String next = offset + PAGE_SIZE < trackCount
+        ? "https://api.spotify.com/v1/playlists/bench/tracks?offset=" + (offset + PAGE_SIZE)
+        : null;
+      pages.add(page(objectMapper, trackCount, offset, PAGE_SIZE, next, seed));
+    }
+    return pages;
+  }
+
+  // Any window of the same playlist can be generated on its own, so a server can answer arbitrary offsets.
+  public static byte[] page(ObjectMapper objectMapper, int trackCount, int offset, int limit, String next, long seed) {
+    ObjectNode root = objectMapper.createObjectNode();
+    ArrayNode items = root.putArray("items");
+    int to = Math.min(trackCount, offset + limit);
+    for (int index = Math.max(0, offset); index < to; index++) {
+      Random random = new Random(seed * 1_000_003L + index);
+      int trackNumber = index > 0 && random.nextInt(100) < 3 ? random.nextInt(index) : index;
+      items.addObject().set("track", track(objectMapper, trackNumber));
+    }
+    root.put("next", next);
+    root.put("total", trackCount);
+    return write(objectMapper, root);
+  }
+
+  // GET /v1/albums?ids=: every album's recordings are dated to its own year, whatever its tracks' pages claim.
+  public static byte[] albums(ObjectMapper objectMapper, List<String> ids) {
+    ObjectNode root = objectMapper.createObjectNode();
+    ArrayNode albums = root.putArray("albums");
+    for (String id : ids) {
+      int albumNumber = id.startsWith("A") ? number(id.substring(1)) : -1;
+      if (albumNumber < 0) {
+        albums.addNull();
+        continue;
+      }
+      ObjectNode album = albums.addObject();
+      album.put("id", id);
+      album.put("album_type", albumType(albumNumber));
+      ArrayNode copyrights = album.putArray("copyrights");
+      copyrights.addObject().put("text", "© 2015 Bench Records").put("type", "C");
+      copyrights.addObject().put("text", "℗ " + (1960 + albumNumber % 65) + " Bench Records").put("type", "P");
+    }
+    return write(objectMapper, root);
+  }
+
+  private static String albumType(int albumNumber) {
+    return albumNumber % 10 == 0 ? "compilation" : "album";
+  }
+
+  private static int number(String id) {
+    try {
+      return Integer.parseInt(id);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static byte[] write(ObjectMapper objectMapper, ObjectNode root) {
+    try {
+      return objectMapper.writeValueAsBytes(root);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static ObjectNode track(ObjectMapper objectMapper, int trackNumber) {
+    // Track fields depend only on the track number, so a repeated track is byte-identical to its first occurrence.
+    Random trackRandom = new Random(trackNumber * 31L + 7);
+    String id = String.format("%022d", trackNumber);
+    ObjectNode track = objectMapper.createObjectNode();
+    track.put("id", id);
+    track.put("name", "Track " + trackNumber + " (Remastered " + (1990 + trackRandom.nextInt(30)) + ")");
+    ArrayNode artists = track.putArray("artists");
+    int artistCount = 1 + (trackRandom.nextInt(10) < 7 ? 0 : trackRandom.nextInt(3));
+    for (int i = 0; i < artistCount; i++) {
+      artists.addObject().put("name", ARTISTS[trackRandom.nextInt(ARTISTS.length)]);
+    }
+    ObjectNode album = track.putObject("album");
+    int albumNumber = trackRandom.nextInt(5_000);
+    album.put("name", "Album " + albumNumber);
+    int year = 1960 + trackRandom.nextInt(65);
+    int dateShape = trackRandom.nextInt(100);
+    if (dateShape < 2) {
+      album.putNull("release_date");
+    } else if (dateShape < 10) {
+      album.put("release_date", String.valueOf(year));
+      album.put("release_date_precision", "year");
+    } else if (dateShape < 15) {
+      album.put("release_date", String.format("%d-%02d", year, 1 + trackRandom.nextInt(12)));
+      album.put("release_date_precision", "month");
+    } else {
+      album.put("release_date", String.format("%d-%02d-%02d", year, 1 + trackRandom.nextInt(12), 1 + trackRandom.nextInt(28)));
+      album.put("release_date_precision", "day");
+    }
+    album.put("id", String.format("A%021d", albumNumber));
+    album.put("album_type", albumType(albumNumber));
+    track.putObject("external_urls").put("spotify", "https://open.spotify.com/track/" + id);
+    return track;
+  }
+}
@@ -0,0 +1,90 @@
+package io.github.pingisfun.muzikant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+
+class SpotifyRequestSchedulerTest {
+  private static final SpotifyCallContext BULK = SpotifyCallContext.of(SpotifyCallPriority.BULK);
+
+  @Test
+  void bulkWithCreditButNoSlotDoesNotBlockInteractive() throws Exception {
+    // Two slots, so BULK may use one. A bulk share of 0.5 gives BULK a full turn after one INTERACTIVE admission.
+    SpotifyRequestScheduler scheduler = scheduler(2, false, 0.5);
+    scheduler.acquire(BULK);
+    CompletableFuture<Void> queuedBulk = CompletableFuture.runAsync(() -> scheduler.acquire(BULK));
+    awaitQueued(scheduler, 1);
+    scheduler.acquire(SpotifyCallContext.INTERACTIVE);
+    scheduler.release("tracks", 0, false);
+
+    // One call in flight: the queued BULK call has credit but no slot, and the slot kept for INTERACTIVE is free.
+    assertEquals(1, scheduler.inFlight());
+    CompletableFuture<Void> interactive = CompletableFuture.runAsync(
+      () -> scheduler.acquire(SpotifyCallContext.INTERACTIVE)
+    );
+    interactive.get(1, TimeUnit.SECONDS);
+    assertFalse(queuedBulk.isDone());
+
+    scheduler.release("tracks", 0, false);
+    scheduler.release("tracks", 0, false);
+    queuedBulk.get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void mixedEndpointLatenciesDoNotCutLimit() throws Exception {
+    SpotifyRequestScheduler scheduler = scheduler(8, true, 0.2);
+    // Metadata answers in 0.1ms and a track page in 1ms, each as usual for its endpoint.
+    for (int round = 0; round < 50; round++) {
+      call(scheduler, "playlist", 100_000);
+      call(scheduler, "tracks", 1_000_000);
+      Thread.sleep(1);
+    }
+
+    assertEquals(8, scheduler.concurrencyLimit());
+  }
+
+  @Test
+  void spikeOnOneEndpointCutsLimit() {
+    SpotifyRequestScheduler scheduler = scheduler(8, true, 0.2);
+    call(scheduler, "playlist", 100_000);
+    call(scheduler, "tracks", 1_000_000);
+    call(scheduler, "tracks", 3_000_000);
+
+    assertEquals(6, scheduler.concurrencyLimit());
+  }
+
+  private static void call(SpotifyRequestScheduler scheduler, String endpoint, long latencyNanos) {
+    scheduler.acquire(SpotifyCallContext.INTERACTIVE);
+    scheduler.release(endpoint, latencyNanos, true);
+  }
+
+  private static SpotifyRequestScheduler scheduler(int slots, boolean adaptive, double bulkShare) {
+    return new SpotifyRequestScheduler(
+      new LocalSpotifyRateState(1_000, Duration.ofSeconds(1)),
+      Duration.ZERO,
+      Duration.ofSeconds(2),
+      slots,
+      adaptive,
+      16,
+      0.5,
+      bulkShare,
+      new SimpleMeterRegistry()
+    );
+  }
+
+  private static void awaitQueued(SpotifyRequestScheduler scheduler, int queued) throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (scheduler.queued() != queued) {
+      if (System.nanoTime() > deadline) {
+        throw new TimeoutException("queued=" + scheduler.queued());
+      }
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package io.github.pingisfun.muzikant.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.pingisfun.muzikant.model.TrackDto;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+// SpotifyTrackPageParser replaced LegacyPageBinding and is benchmarked against it, so both must read every page to
+// the same tracks: the generated fixtures, and hand-written pages with the odd shapes Spotify and its clients produce.
+class TrackPageParseEquivalenceTest {
+  private static final String TRACK = "{'id':'t1','name':'Dancing On My Own','artists':[{'name':'Robyn'}],"
+    + "'album':{'name':'Body Talk Pt. 1','release_date':'2010-06-14'},"
+    + "'external_urls':{'spotify':'https://open.spotify.com/track/t1'}}";
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+  private final SpotifyTrackPageParser pageParser = new SpotifyTrackPageParser(objectMapper);
+
+  @Test
+  void fixturePagesParseAlike() throws IOException {
+    for (long seed = 1; seed <= 5; seed++) {
+      for (byte[] page : SpotifyPageFixtures.pages(objectMapper, 1_000, seed)) {
+        assertSameTracks(page);
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "{'artists':null}",
+    "{'artists':[]}",
+    "{'artists':[null,{'name':null},{'name':''},{'name':'  '},{'name':'Robyn'},{}]}",
+    "{'name':''}",
+    "{'name':'   '}",
+    "{'name':null}",
+    "{'album':null}",
+    "{'album':{}}",
+    "{'album':{'name':'Body Talk','release_date':null}}",
+    "{'album':{'release_date':''}}",
+    "{'album':{'release_date':'  '}}",
+    "{'album':{'release_date':'199'}}",
+    "{'album':{'release_date':'1999'}}",
+    "{'album':{'release_date':'1999-04-12'}}",
+    "{'album':{'release_date':'19x9'}}",
+    "{'album':{'release_date':'-123-01-01'}}",
+    "{'album':{'release_date':'+199'}}",
+    "{'album':{'release_date':1999}}",
+    "{'album':{'release_date':-1999}}",
+    "{'album':{'release_date':199}}",
+    "{'album':{'release_date':1999.5}}",
+    "{'album':{'release_date':19.995}}",
+    "{'album':{'release_date':true}}",
+    "{'album':{'release_date':false}}",
+    "{'external_urls':null}",
+    "{'external_urls':{}}",
+    "{'external_urls':{'spotify':null}}",
+  })
+  void trackEdgeCasesParseAlike(String fields) throws IOException {
+    ObjectNode track = (ObjectNode) objectMapper.readTree(json(TRACK));
+    track.setAll((ObjectNode) objectMapper.readTree(json(fields)));
+    ObjectNode page = objectMapper.createObjectNode();
+    page.putArray("items").addObject().set("track", track);
+    page.putNull("next");
+    page.put("total", 1);
+    assertSameTracks(objectMapper.writeValueAsBytes(page));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "{'is_local':true,'track':{'id':'t1'}}",
+    "{'is_local':false,'track':{'id':'t1'}}",
+    "{'is_local':'true','track':{'id':'t1'}}",
+    "{'is_local':'false','track':{'id':'t1'}}",
+    "{'is_local':null,'track':{'id':'t1'}}",
+    "{'track':{'id':'t1'},'is_local':true}",
+    "{'track':null}",
+    "{'track':{'id':null}}",
+    "{'track':{'id':''}}",
+    "{'track':{'id':' '}}",
+    "{}",
+    "null",
+  })
+  void itemEdgeCasesParseAlike(String item) throws IOException {
+    assertSameTracks(page(item + ",{'track':{'id':'t2','name':'Kept'}}"));
+  }
+
+  @Test
+  void repeatsWithinPageParseAlike() throws IOException {
+    assertSameTracks(page("{'track':{'id':'t1','name':'First'}},{'track':{'id':'t2'}},{'track':{'id':'t1','name':'Again'}}"));
+  }
+
+  private void assertSameTracks(byte[] body) throws IOException {
+    LegacyPageBinding.PlaylistTracksResponse legacy = LegacyPageBinding.bind(objectMapper, body);
+    List<TrackDto> expected = new ArrayList<>();
+    LegacyPageBinding.addTracks(expected, new HashSet<>(), legacy.items);
+    SpotifyTrackPage parsed = pageParser.parse(body);
+
+    String page = new String(body, StandardCharsets.UTF_8);
+    assertEquals(describe(expected), describe(parsed.getTracks()), page);
+    assertEquals(legacy.next, parsed.getNext(), page);
+    assertEquals(legacy.total, parsed.getTotal(), page);
+  }
+
+  private static List<List<Object>> describe(List<TrackDto> tracks) {
+    return tracks.stream()
+      .map(track -> Arrays.<Object>asList(
+        track.getId(),
+        track.getTitle(),
+        track.getArtist(),
+        track.getAlbum(),
+        track.getYear(),
+        track.getSpotifyUrl()
+      ))
+      .toList();
+  }
+
+  private static byte[] page(String items) {
+    return json("{'items':[" + items + "],'next':null,'total':3}");
+  }
+
+  // Test JSON is written with single quotes to keep it readable in Java strings.
+  private static byte[] json(String singleQuoted) {
+    return singleQuoted.replace('\'', '"').getBytes(StandardCharsets.UTF_8);
+  }
+}